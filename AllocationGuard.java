@@ -0,0 +1,141 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Comparator;
+import javax.swing.SwingUtilities;
+
+/**
+ * Allocation regression check for the steady-state game loop. Builds a real GamePanel
+ * without a window, lets the Hamiltonian solver play, and runs the panel's own tick
+ * and paint paths on the event dispatch thread, measuring the bytes that thread
+ * allocates per tick once everything has warmed up. Exits with status 1 if that
+ * exceeds the threshold.
+ *
+ * Usage: java AllocationGuard [ticks] [maxBytesPerTick]
+ */
+public class AllocationGuard {
+    static {
+        // Must be set before any AWT class looks at it
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    private static final int WARMUP_TICKS = 10000;
+    // The measured ticks are split into rounds and the median round is judged, so a
+    // one-off JIT deoptimization, which allocates until the code is recompiled, does
+    // not fail the check while allocation in every frame still does
+    private static final int ROUNDS = 5;
+
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private GamePanel panel;
+    private BufferedImage frame;
+    private Graphics2D g2d;
+    private int restartLength;
+
+    private long tickBytes;
+    private long renderBytes;
+
+    /**
+     * Runs one tick and one frame through the panel, measuring them if asked, and
+     * starts a new game once the snake fills half the board
+     */
+    private void step(boolean measure) {
+        long threadId = Thread.currentThread().getId();
+        long before = measure ? threads.getThreadAllocatedBytes(threadId) : 0;
+        boolean playing = panel.tickOnce();
+        long afterTick = measure ? threads.getThreadAllocatedBytes(threadId) : 0;
+        panel.paintFrame(g2d);
+
+        if (measure) {
+            long afterRender = threads.getThreadAllocatedBytes(threadId);
+            tickBytes += afterTick - before;
+            renderBytes += afterRender - afterTick;
+        }
+
+        // A new game allocates by design; start it outside the measurement.
+        // The solver never dies, so the game-over path (high scores, replay file) is not taken.
+        if (!playing || panel.getSnakeLength() >= restartLength) {
+            panel.startSolverGame();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, InvocationTargetException {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        long maxBytesPerTick = args.length > 1 ? Long.parseLong(args[1]) : 64;
+
+        // Keep the panel's files out of the working directory and play on the open board
+        File scratch = File.createTempFile("allocation-guard", ".log");
+        scratch.deleteOnExit();
+        System.setProperty("snake.highScores", scratch.getPath());
+        System.setProperty("snake.levels", scratch.getPath() + ".missing");
+
+        AllocationGuard guard = new AllocationGuard();
+        if (!guard.threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("Thread allocation accounting is not supported by this JVM");
+            System.exit(2);
+        }
+        guard.threads.setThreadAllocatedMemoryEnabled(true);
+
+        SwingUtilities.invokeAndWait(() -> {
+            guard.panel = new GamePanel();
+            Dimension size = guard.panel.getPreferredSize();
+            guard.panel.setSize(size);
+            guard.frame = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+            guard.g2d = guard.frame.createGraphics();
+        });
+
+        // The warm-up thread swaps fonts and the background in on the event dispatch thread
+        boolean[] warmedUp = new boolean[1];
+        while (!warmedUp[0]) {
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(() -> warmedUp[0] = guard.panel.isWarmedUp());
+        }
+
+        double[] tickPerTick = new double[ROUNDS];
+        double[] renderPerTick = new double[ROUNDS];
+        int roundTicks = Math.max(1, ticks / ROUNDS);
+        SwingUtilities.invokeAndWait(() -> {
+            guard.panel.startSolverGame();
+            Dimension size = guard.panel.getPreferredSize();
+            int unitSize = guard.panel.getUnitSize();
+            guard.restartLength = (size.width / unitSize) * (size.height / unitSize) / 2;
+
+            // Let the JIT, sprite caches and list capacities settle before measuring
+            for (int i = 0; i < WARMUP_TICKS; i++) {
+                guard.step(false);
+            }
+            for (int round = 0; round < ROUNDS; round++) {
+                guard.tickBytes = 0;
+                guard.renderBytes = 0;
+                for (int i = 0; i < roundTicks; i++) {
+                    guard.step(true);
+                }
+                tickPerTick[round] = guard.tickBytes / (double) roundTicks;
+                renderPerTick[round] = guard.renderBytes / (double) roundTicks;
+            }
+        });
+
+        Integer[] order = new Integer[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            order[round] = round;
+            System.out.printf("  round %d: %.1f bytes/tick in the tick, %.1f in rendering%n",
+                round + 1, tickPerTick[round], renderPerTick[round]);
+        }
+        Arrays.sort(order, Comparator.comparingDouble(round -> tickPerTick[round] + renderPerTick[round]));
+        int median = order[ROUNDS / 2];
+        double total = tickPerTick[median] + renderPerTick[median];
+        System.out.printf("%d ticks in %d rounds, median round: %.1f bytes/tick in the tick, %.1f bytes/tick in rendering, %.1f total (limit %d)%n",
+            roundTicks * ROUNDS, ROUNDS, tickPerTick[median], renderPerTick[median], total, maxBytesPerTick);
+        if (total > maxBytesPerTick) {
+            System.err.println("FAIL: steady-state allocation is over the limit");
+            System.exit(1);
+        }
+        System.out.println("OK");
+        System.exit(0);
+    }
+}
@@ -0,0 +1,301 @@
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Autopilot that steers the snake toward the food with a breadth-first search
+ * and only commits to a path when the tail is still reachable after eating.
+ * All search state lives in preallocated primitive arrays that are reset by
+ * bumping a generation counter, so a decision never allocates.
+ */
+public class Autopilot implements Pilot {
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+
+    // Search targets other than a cell
+    private static final int TARGET_NONE = -1;
+    private static final int TARGET_TAIL = -2;
+
+    // How many cell expansions happen between two reads of the clock
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+
+    private final int cols;
+    private final int rows;
+    private final int unitSize;
+    private final long budgetNanos;
+
+    // Tick at which each body cell is vacated, valid where bodyStamp matches bodyGeneration
+    private final int[] bodyFreeAt;
+    private final int[] bodyStamp;
+    private int bodyGeneration;
+
+    // Planned path to the food, valid where pathStamp matches pathGeneration
+    private final int[] pathFreeAt;
+    private final int[] pathStamp;
+    private int pathGeneration;
+    private int growthTick = Integer.MAX_VALUE;
+
+    // Search state, valid where visitStamp matches visitGeneration
+    private final int[] visitStamp;
+    private final int[] distance;
+    private final int[] parent;
+    private final int[] firstMove;
+    private final int[] queue;
+    private int visitGeneration;
+    private int reachableCount;
+
+    private int headCell;
+    private int length;
+    private long deadline;
+    private int expansions;
+    private boolean timedOut;
+
+    public Autopilot(int cols, int rows, int unitSize, long budgetNanos) {
+        this.cols = cols;
+        this.rows = rows;
+        this.unitSize = unitSize;
+        this.budgetNanos = budgetNanos;
+
+        int cells = cols * rows;
+        this.bodyFreeAt = new int[cells];
+        this.bodyStamp = new int[cells];
+        this.pathFreeAt = new int[cells];
+        this.pathStamp = new int[cells];
+        this.visitStamp = new int[cells];
+        this.distance = new int[cells];
+        this.parent = new int[cells];
+        this.firstMove = new int[cells];
+        this.queue = new int[cells];
+    }
+
+    @Override
+    public void steer(Snake snake, Food food) {
+        char move = nextDirection(snake, food.getX(), food.getY());
+        if (move != 0) {
+            snake.setDirection(move);
+        }
+    }
+
+    /**
+     * Computes the next direction, or 0 when the head is already off the board
+     */
+    public char nextDirection(Snake snake, int foodX, int foodY) {
+        deadline = System.nanoTime() + budgetNanos;
+        expansions = 0;
+        timedOut = false;
+
+        if (!markBody(snake)) {
+            return 0;
+        }
+
+        // Shortest path to the food, taken only if the snake can still chase its tail afterwards
+        int foodCell = cellOf(foodX, foodY);
+        int move = search(headCell, 0, foodCell);
+        if (move >= 0 && !timedOut && isSafeAfterEating(foodCell)) {
+            return DIRECTIONS[move];
+        }
+
+        return DIRECTIONS[safeMove(indexOf(snake.getDirection()), foodCell)];
+    }
+
+    /**
+     * Records when each body cell is vacated; returns false if the head is off the board
+     */
+    private boolean markBody(Snake snake) {
+        List<Point> body = snake.getBodyParts();
+        Point head = body.get(0);
+        if (!inBounds(head.x / unitSize, head.y / unitSize)) {
+            return false;
+        }
+
+        // A growing snake keeps its tail in place for the pending segments
+        length = Math.max(snake.getLength(), body.size());
+
+        bodyGeneration++;
+        for (int i = body.size() - 1; i >= 0; i--) {
+            Point part = body.get(i);
+            int cell = cellOf(part.x, part.y);
+            bodyStamp[cell] = bodyGeneration;
+            bodyFreeAt[cell] = length - i;
+        }
+
+        headCell = cellOf(head.x, head.y);
+        pathGeneration++;
+        growthTick = Integer.MAX_VALUE;
+        return true;
+    }
+
+    /**
+     * Lays the path found by the last search onto the board as a virtual body and
+     * checks that the tail can be chased from the food once it has been eaten
+     */
+    private boolean isSafeAfterEating(int foodCell) {
+        int arrival = distance[foodCell];
+
+        pathGeneration++;
+        for (int cell = foodCell; cell != headCell; cell = parent[cell]) {
+            pathStamp[cell] = pathGeneration;
+            pathFreeAt[cell] = distance[cell] + length + 1;
+        }
+        growthTick = arrival;
+
+        boolean safe = search(foodCell, arrival, TARGET_TAIL) >= 0;
+
+        pathGeneration++;
+        growthTick = Integer.MAX_VALUE;
+        return safe && !timedOut;
+    }
+
+    /**
+     * Breadth-first search from start, where start is reached at startTick.
+     * Returns the index of the first move on a shortest path to target, or -1.
+     * TARGET_TAIL stops at the first cell the body has vacated in time;
+     * TARGET_NONE explores the whole reachable area and counts it.
+     */
+    private int search(int start, int startTick, int target) {
+        visitGeneration++;
+        visitStamp[start] = visitGeneration;
+        distance[start] = startTick;
+        parent[start] = -1;
+        firstMove[start] = -1;
+
+        int read = 0;
+        int write = 0;
+        queue[write++] = start;
+
+        while (read < write) {
+            if (++expansions % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                timedOut = true;
+                return -1;
+            }
+
+            int cell = queue[read++];
+            int cx = cell % cols;
+            int cy = cell / cols;
+            int tick = distance[cell] + 1;
+
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (!inBounds(nx, ny)) {
+                    continue;
+                }
+                int next = ny * cols + nx;
+                if (visitStamp[next] == visitGeneration || !isFree(next, tick)) {
+                    continue;
+                }
+
+                visitStamp[next] = visitGeneration;
+                distance[next] = tick;
+                parent[next] = cell;
+                firstMove[next] = cell == start ? d : firstMove[cell];
+                if (next == target || (target == TARGET_TAIL && isOccupied(next))) {
+                    return firstMove[next];
+                }
+                queue[write++] = next;
+            }
+        }
+
+        reachableCount = write;
+        return -1;
+    }
+
+    /**
+     * Picks a move that does not collide on the next tick. Moves that keep the tail
+     * reachable win, closest to the food first; otherwise the move with the most room.
+     * Once the budget is exhausted the first non-colliding move is taken, current
+     * direction first.
+     */
+    private int safeMove(int current, int foodCell) {
+        int fallback = -1;
+        int best = -1;
+        long bestScore = Long.MIN_VALUE;
+
+        for (int i = 0; i < 4; i++) {
+            // Try the current direction before the others
+            int d = i == 0 ? current : (i <= current ? i - 1 : i);
+            int next = neighbour(headCell, d);
+            if (next < 0 || !isFree(next, 1)) {
+                continue;
+            }
+            if (fallback < 0) {
+                fallback = d;
+            }
+            if (timedOut) {
+                continue;
+            }
+
+            long score;
+            if (isOccupied(next) || search(next, 1, TARGET_TAIL) >= 0) {
+                score = Integer.MAX_VALUE - manhattan(next, foodCell);
+            } else {
+                search(next, 1, TARGET_NONE);
+                score = reachableCount;
+            }
+            if (!timedOut && score > bestScore) {
+                bestScore = score;
+                best = d;
+            }
+        }
+
+        if (best >= 0) {
+            return best;
+        }
+        return fallback >= 0 ? fallback : current;
+    }
+
+    /**
+     * Checks whether a cell is empty at the given tick, taking the planned path into account
+     */
+    private boolean isFree(int cell, int tick) {
+        if (pathStamp[cell] == pathGeneration) {
+            return pathFreeAt[cell] <= tick;
+        }
+        if (bodyStamp[cell] == bodyGeneration) {
+            int freeAt = bodyFreeAt[cell];
+            return (freeAt > growthTick ? freeAt + 1 : freeAt) <= tick;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a cell is covered by the body or the planned path at some point
+     */
+    private boolean isOccupied(int cell) {
+        return pathStamp[cell] == pathGeneration || bodyStamp[cell] == bodyGeneration;
+    }
+
+    private int neighbour(int cell, int move) {
+        int nx = cell % cols + DX[move];
+        int ny = cell / cols + DY[move];
+        return inBounds(nx, ny) ? ny * cols + nx : -1;
+    }
+
+    private int manhattan(int a, int b) {
+        return Math.abs(a % cols - b % cols) + Math.abs(a / cols - b / cols);
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < cols && y >= 0 && y < rows;
+    }
+
+    private int cellOf(int x, int y) {
+        return (y / unitSize) * cols + x / unitSize;
+    }
+
+    private static int indexOf(char direction) {
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            if (DIRECTIONS[i] == direction) {
+                return i;
+            }
+        }
+        return 3;
+    }
+
+    /**
+     * Checks whether the last decision ran out of its time budget
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+}
@@ -0,0 +1,102 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Pre-rendered board background (fill, grid and any level walls and portals) that
+ * is blitted each frame instead of drawing every grid line and wall again
+ */
+public class BackgroundLayer {
+    private static final Color WALL_COLOR = new Color(127, 140, 141);
+    private static final Color WALL_EDGE_COLOR = new Color(95, 106, 106);
+    // Both ends of a portal share a color
+    private static final Color[] PORTAL_COLORS = {
+        new Color(155, 89, 182),
+        new Color(230, 126, 34),
+        new Color(26, 188, 156)
+    };
+
+    private final BufferedImage image;
+
+    private BackgroundLayer(BufferedImage image) {
+        this.image = image;
+    }
+
+    /**
+     * Renders the background; safe to call off the event dispatch thread
+     */
+    public static BackgroundLayer render(int width, int height, int unitSize, Color background, Color grid) {
+        return render(width, height, unitSize, background, grid, null);
+    }
+
+    /**
+     * Renders the background with a level's walls and portals, or none if level is null;
+     * safe to call off the event dispatch thread
+     */
+    public static BackgroundLayer render(int width, int height, int unitSize, Color background, Color grid,
+                                         LevelPack.Level level) {
+        BufferedImage image = createImage(width, height);
+        Graphics2D g2d = image.createGraphics();
+
+        g2d.setColor(background);
+        g2d.fillRect(0, 0, width, height);
+
+        g2d.setColor(grid);
+        g2d.setStroke(new BasicStroke(1));
+        for (int i = 0; i < width / unitSize; i++) {
+            g2d.drawLine(i * unitSize, 0, i * unitSize, height);
+        }
+        for (int i = 0; i < height / unitSize; i++) {
+            g2d.drawLine(0, i * unitSize, width, i * unitSize);
+        }
+
+        if (level != null) {
+            drawLevel(g2d, unitSize, level);
+        }
+
+        g2d.dispose();
+        return new BackgroundLayer(image);
+    }
+
+    private static void drawLevel(Graphics2D g2d, int unitSize, LevelPack.Level level) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int row = 0; row < level.getRows(); row++) {
+            for (int col = 0; col < level.getCols(); col++) {
+                if (level.isWall(col, row)) {
+                    g2d.setColor(WALL_EDGE_COLOR);
+                    g2d.fillRect(col * unitSize, row * unitSize, unitSize, unitSize);
+                    g2d.setColor(WALL_COLOR);
+                    g2d.fillRect(col * unitSize + 1, row * unitSize + 1, unitSize - 3, unitSize - 3);
+                }
+            }
+        }
+
+        g2d.setStroke(new BasicStroke(3));
+        for (int portal = 0; portal < level.getPortalCount(); portal++) {
+            g2d.setColor(PORTAL_COLORS[portal % PORTAL_COLORS.length]);
+            for (int end = 0; end < 2; end++) {
+                int cell = level.getPortalCell(portal, end);
+                int x = (cell % level.getCols()) * unitSize;
+                int y = (cell / level.getCols()) * unitSize;
+                g2d.drawOval(x + 2, y + 2, unitSize - 5, unitSize - 5);
+            }
+        }
+    }
+
+    /**
+     * Creates an opaque image in the screen's format where there is a screen, so blits need no conversion
+     */
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+            .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.OPAQUE);
+    }
+
+    /**
+     * Draws the background at the origin
+     */
+    public void draw(Graphics2D g2d) {
+        g2d.drawImage(image, 0, 0, null);
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Load generator that opens many bot connections to a GameServer from one thread.
+ * Bots consume every frame and send a random turn now and then; throughput is
+ * reported once per second.
+ *
+ * Usage: java BotLoadGenerator [host] [port] [clients] [seconds]
+ */
+public class BotLoadGenerator {
+    private static final char[] DIRECTIONS = {'U', 'D', 'L', 'R'};
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final long TURN_INTERVAL_NANOS = 100_000_000;
+
+    /**
+     * Per-bot connection state
+     */
+    private static class Bot {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final ByteBuffer out = ByteBuffer.allocateDirect(1);
+
+        Bot(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : NetProtocol.DEFAULT_PORT;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        Selector selector = Selector.open();
+        Bot[] bots = new Bot[clients];
+        for (int i = 0; i < clients; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+            channel.configureBlocking(false);
+            bots[i] = new Bot(channel);
+            channel.register(selector, SelectionKey.OP_READ, bots[i]);
+        }
+        System.out.println("Connected " + clients + " bots to " + host + ":" + port);
+
+        Random random = new Random();
+        long frames = 0;
+        long bytes = 0;
+        int open = clients;
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        long nextReport = System.nanoTime() + 1_000_000_000L;
+        long nextTurns = System.nanoTime();
+
+        while (open > 0 && System.nanoTime() < end) {
+            selector.select(10);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Bot bot = (Bot) key.attachment();
+
+                int read;
+                try {
+                    read = bot.channel.read(bot.in);
+                } catch (IOException e) {
+                    read = -1;
+                }
+                if (read < 0) {
+                    key.cancel();
+                    bot.channel.close();
+                    open--;
+                    continue;
+                }
+
+                // Count whole frames and drop them
+                bytes += read;
+                bot.in.flip();
+                int size;
+                while ((size = NetProtocol.frameSize(bot.in)) >= 0 && bot.in.remaining() >= size) {
+                    bot.in.position(bot.in.position() + size);
+                    frames++;
+                }
+                bot.in.compact();
+            }
+
+            long now = System.nanoTime();
+            if (now >= nextTurns) {
+                for (Bot bot : bots) {
+                    if (bot.channel.isOpen() && random.nextInt(4) == 0) {
+                        bot.out.clear();
+                        bot.out.put((byte) DIRECTIONS[random.nextInt(4)]).flip();
+                        try {
+                            bot.channel.write(bot.out);
+                        } catch (IOException e) {
+                            // Picked up as a failed read
+                        }
+                    }
+                }
+                nextTurns = now + TURN_INTERVAL_NANOS;
+            }
+            if (now >= nextReport) {
+                System.out.printf("%d bots open, %d frames/s, %.2f MB/s%n", open, frames, bytes / 1e6);
+                frames = 0;
+                bytes = 0;
+                nextReport = now + 1_000_000_000L;
+            }
+        }
+
+        for (Bot bot : bots) {
+            bot.channel.close();
+        }
+        selector.close();
+    }
+}
@@ -0,0 +1,169 @@
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.image.BufferedImage;
+
+/**
+ * A line of text in a fixed font and color, rendered once into an image and blitted
+ * on every frame after that. Text with a number, such as "Score: 12", is drawn as the
+ * prefix image followed by one pre-rendered image per digit, so a changing number
+ * costs a few more blits instead of a string concatenation, a glyph layout and a new
+ * image.
+ */
+public class CachedText {
+    // Key for text drawn without a number
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    // Antialiased, fractional metrics; matches the hints the images are rendered with
+    private static final FontRenderContext RENDER_CONTEXT = new FontRenderContext(null, true, true);
+
+    private static final String DIGITS = "0123456789-";
+    private static final int MINUS = 10;
+
+    private final Font font;
+    private final Color color;
+    private final String prefix;
+
+    // Rendered on first use
+    private BufferedImage prefixImage;
+    private BufferedImage[] digitImages;
+    private int ascent;
+
+    // Digits of the number being drawn, least significant first
+    private final int[] digits = new int[20];
+
+    /**
+     * Creates text that reads prefix, optionally followed by a number
+     */
+    public CachedText(Font font, Color color, String prefix) {
+        this.font = font;
+        this.color = color;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Draws just the prefix with its baseline at y
+     */
+    public void draw(Graphics2D g2d, int x, int y) {
+        draw(g2d, NO_VALUE, x, y);
+    }
+
+    /**
+     * Draws the prefix followed by value with its baseline at y
+     */
+    public void draw(Graphics2D g2d, long value, int x, int y) {
+        render();
+        int top = y - ascent;
+        if (!prefix.isEmpty()) {
+            g2d.drawImage(prefixImage, x, top, null);
+            x += prefixImage.getWidth();
+        }
+        if (value == NO_VALUE) {
+            return;
+        }
+
+        if (value < 0) {
+            g2d.drawImage(digitImages[MINUS], x, top, null);
+            x += digitImages[MINUS].getWidth();
+        }
+        for (int i = splitDigits(value) - 1; i >= 0; i--) {
+            BufferedImage digit = digitImages[digits[i]];
+            g2d.drawImage(digit, x, top, null);
+            x += digit.getWidth();
+        }
+    }
+
+    /**
+     * Draws just the prefix centered on centerX
+     */
+    public void drawCentered(Graphics2D g2d, int centerX, int y) {
+        drawCentered(g2d, NO_VALUE, centerX, y);
+    }
+
+    /**
+     * Draws the prefix followed by value centered on centerX
+     */
+    public void drawCentered(Graphics2D g2d, long value, int centerX, int y) {
+        draw(g2d, value, centerX - getWidth(value) / 2, y);
+    }
+
+    /**
+     * Gets the width of the prefix alone
+     */
+    public int getWidth() {
+        return getWidth(NO_VALUE);
+    }
+
+    /**
+     * Gets the width of the prefix followed by value
+     */
+    public int getWidth(long value) {
+        render();
+        int width = prefix.isEmpty() ? 0 : prefixImage.getWidth();
+        if (value == NO_VALUE) {
+            return width;
+        }
+        if (value < 0) {
+            width += digitImages[MINUS].getWidth();
+        }
+        for (int i = splitDigits(value) - 1; i >= 0; i--) {
+            width += digitImages[digits[i]].getWidth();
+        }
+        return width;
+    }
+
+    /**
+     * Fills digits with the decimal digits of value's magnitude and returns how many there are
+     */
+    private int splitDigits(long value) {
+        int count = 0;
+        do {
+            digits[count++] = (int) Math.abs(value % 10);
+            value /= 10;
+        } while (value != 0);
+        return count;
+    }
+
+    /**
+     * Renders the prefix and digit images the first time they are needed
+     */
+    private void render() {
+        if (prefixImage != null) {
+            return;
+        }
+        ascent = (int) Math.ceil(font.getLineMetrics(DIGITS, RENDER_CONTEXT).getAscent());
+
+        digitImages = new BufferedImage[DIGITS.length()];
+        for (int i = 0; i < DIGITS.length(); i++) {
+            digitImages[i] = renderText(DIGITS.substring(i, i + 1));
+        }
+        prefixImage = renderText(prefix);
+    }
+
+    private BufferedImage renderText(String text) {
+        LineMetrics metrics = font.getLineMetrics(text, RENDER_CONTEXT);
+        int width = Math.max(1, (int) Math.round(font.getStringBounds(text, RENDER_CONTEXT).getWidth()));
+        int height = Math.max(1, ascent + (int) Math.ceil(metrics.getDescent()));
+        BufferedImage image = createImage(width, height);
+
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        g2d.setFont(font);
+        g2d.setColor(color);
+        g2d.drawString(text, 0, ascent);
+        g2d.dispose();
+        return image;
+    }
+
+    /**
+     * Creates a translucent image in the screen's format where there is a screen
+     */
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+            .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
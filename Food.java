@@ -1,6 +1,9 @@
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Food entity class that handles food generation and rendering
@@ -11,18 +14,38 @@ public class Food {
     private int unitSize;
     private int panelWidth;
     private int panelHeight;
-    private Random random;
+    private long rngState;
+    private boolean[] occupiedCells;
+    private LevelPack.Level level;
+    private Sprites sprites;
     
     // Modern food colors
     private static final Color FOOD_COLOR = new Color(231, 76, 60);
     private static final Color FOOD_HIGHLIGHT = new Color(255, 107, 91);
     private static final Color GLOW_COLOR = new Color(231, 76, 60, 100);
+    private static final Color GLOW_EDGE_COLOR = new Color(231, 76, 60, 0);
+    private static final Color BODY_HIGHLIGHT = new Color(255, 255, 255, 150);
+    
+    // White at every alpha, for the sparkles
+    private static final Color[] SPARKLE_COLORS = new Color[256];
+    static {
+        for (int alpha = 0; alpha < SPARKLE_COLORS.length; alpha++) {
+            SPARKLE_COLORS[alpha] = new Color(255, 255, 255, alpha);
+        }
+    }
     
     public Food(int unitSize, int panelWidth, int panelHeight) {
+        this(unitSize, panelWidth, panelHeight, System.nanoTime());
+    }
+    
+    /**
+     * Creates food whose placements are fully determined by the seed
+     */
+    public Food(int unitSize, int panelWidth, int panelHeight, long seed) {
         this.unitSize = unitSize;
         this.panelWidth = panelWidth;
         this.panelHeight = panelHeight;
-        this.random = new Random();
+        this.rngState = seed;
         
         // Generate initial food position
         generateRandomPosition();
@@ -32,23 +55,44 @@ public class Food {
      * Generates a new random position for the food
      */
     private void generateRandomPosition() {
-        x = random.nextInt(panelWidth / unitSize) * unitSize;
-        y = random.nextInt(panelHeight / unitSize) * unitSize;
+        x = nextInt(panelWidth / unitSize) * unitSize;
+        y = nextInt(panelHeight / unitSize) * unitSize;
+    }
+    
+    /**
+     * Returns a pseudo-random int in [0, bound) from a SplitMix64 generator whose
+     * whole state is one long, so it can be saved and restored exactly
+     */
+    private int nextInt(int bound) {
+        rngState += 0x9E3779B97F4A7C15L;
+        long z = rngState;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) ((z >>> 33) % bound);
     }
     
     /**
      * Generates new food position avoiding snake body
      */
     public void generateNewFood(List<Point> snakeBodyParts) {
+        // On a crowded board random probing rarely hits a free cell, so pick one directly
+        int cells = (panelWidth / unitSize) * (panelHeight / unitSize);
+        if (snakeBodyParts.size() * 2 >= cells) {
+            placeOnFreeCell(snakeBodyParts);
+            return;
+        }
+        
         boolean validPosition = false;
         int attempts = 0;
         
         while (!validPosition && attempts < 100) {
             generateRandomPosition();
-            validPosition = true;
+            validPosition = !onLevelFeature(x / unitSize, y / unitSize);
             
             // Check if position conflicts with snake body
-            for (Point part : snakeBodyParts) {
+            for (int i = 0; validPosition && i < snakeBodyParts.size(); i++) {
+                Point part = snakeBodyParts.get(i);
                 if (part.x == x && part.y == y) {
                     validPosition = false;
                     break;
@@ -57,9 +101,53 @@ public class Food {
             attempts++;
         }
         
-        // If we couldn't find a valid position after 100 attempts, use any position
+        // If we couldn't find a valid position after 100 attempts, pick among the free cells
         if (!validPosition) {
-            generateRandomPosition();
+            placeOnFreeCell(snakeBodyParts);
+        }
+    }
+    
+    /**
+     * Places the food on a uniformly chosen free cell, leaving it unchanged if the board is full
+     */
+    private void placeOnFreeCell(List<Point> snakeBodyParts) {
+        int cols = panelWidth / unitSize;
+        int rows = panelHeight / unitSize;
+        if (occupiedCells == null) {
+            occupiedCells = new boolean[cols * rows];
+        } else {
+            Arrays.fill(occupiedCells, false);
+        }
+        
+        int freeCount = cols * rows;
+        if (level != null) {
+            for (int cell = 0; cell < occupiedCells.length; cell++) {
+                if (onLevelFeature(cell % cols, cell / cols)) {
+                    occupiedCells[cell] = true;
+                    freeCount--;
+                }
+            }
+        }
+        for (int i = 0; i < snakeBodyParts.size(); i++) {
+            Point part = snakeBodyParts.get(i);
+            int col = part.x / unitSize;
+            int row = part.y / unitSize;
+            if (col >= 0 && col < cols && row >= 0 && row < rows && !occupiedCells[row * cols + col]) {
+                occupiedCells[row * cols + col] = true;
+                freeCount--;
+            }
+        }
+        if (freeCount == 0) {
+            return;
+        }
+        
+        int pick = nextInt(freeCount);
+        for (int cell = 0; cell < occupiedCells.length; cell++) {
+            if (!occupiedCells[cell] && pick-- == 0) {
+                x = (cell % cols) * unitSize;
+                y = (cell / cols) * unitSize;
+                return;
+            }
         }
     }
     
@@ -67,56 +155,211 @@ public class Food {
      * Draws the food with modern styling and animations
      */
     public void draw(Graphics2D g2d, float gameTime) {
+        draw(g2d, gameTime, RenderQuality.FULL);
+    }
+    
+    /**
+     * Draws the food at the given quality level
+     */
+    public void draw(Graphics2D g2d, float gameTime, RenderQuality quality) {
+        // Cheapest level: a plain circle without glow
+        if (!quality.drawsGradients()) {
+            g2d.setColor(FOOD_COLOR);
+            g2d.fillOval(x + 1, y + 1, unitSize - 2, unitSize - 2);
+            return;
+        }
+        
+        // Until the sprites are pre-rendered the food is painted directly
+        if (sprites == null) {
+            sprites = Sprites.ifReady(unitSize);
+        }
+        
         // Calculate pulsing animation
         float pulse = (float) (Math.sin(gameTime * 4) * 0.1f + 0.9f);
         int size = (int) (unitSize * pulse);
         int offset = (unitSize - size) / 2;
         
-        // Draw glow effect
-        int glowSize = (int) (unitSize * 1.5f);
-        int glowOffset = (unitSize - glowSize) / 2;
-        
-        // Create radial gradient for glow
-        RadialGradientPaint glowGradient = new RadialGradientPaint(
-            x + unitSize / 2, y + unitSize / 2, glowSize / 2,
-            new float[]{0.0f, 1.0f},
-            new Color[]{GLOW_COLOR, new Color(231, 76, 60, 0)}
-        );
-        g2d.setPaint(glowGradient);
-        g2d.fillOval(x + glowOffset, y + glowOffset, glowSize, glowSize);
-        
-        // Draw main food body
-        GradientPaint foodGradient = new GradientPaint(
-            x + offset, y + offset, FOOD_HIGHLIGHT,
-            x + offset + size, y + offset + size, FOOD_COLOR
-        );
-        g2d.setPaint(foodGradient);
-        g2d.fillOval(x + offset + 1, y + offset + 1, size - 2, size - 2);
-        
-        // Draw highlight
-        g2d.setColor(new Color(255, 255, 255, 150));
-        int highlightSize = size / 3;
-        g2d.fillOval(x + offset + size / 4, y + offset + size / 4, highlightSize, highlightSize);
+        if (sprites != null) {
+            // Draw glow effect
+            if (sprites.glow != null) {
+                g2d.drawImage(sprites.glow, x + sprites.glowOffset, y + sprites.glowOffset, null);
+            }
+            
+            // Draw main food body, with its highlight if quality permits
+            BufferedImage[] bodies = quality.drawsHighlights() ? sprites.highlightedBodies : sprites.bodies;
+            if (size > 0 && size < bodies.length) {
+                g2d.drawImage(bodies[size], x + offset, y + offset, null);
+            }
+        } else {
+            int glowSize = Sprites.glowSize(unitSize);
+            int glowOffset = (unitSize - glowSize) / 2;
+            if (glowSize / 2 > 0) {
+                g2d.translate(x + glowOffset, y + glowOffset);
+                Sprites.paintGlow(g2d, unitSize, glowSize, glowOffset);
+                g2d.translate(-(x + glowOffset), -(y + glowOffset));
+            }
+            if (size > 0) {
+                g2d.translate(x + offset, y + offset);
+                Sprites.paintBody(g2d, size, quality.drawsHighlights());
+                g2d.translate(-(x + offset), -(y + offset));
+            }
+        }
         
         // Add sparkle effect
-        drawSparkles(g2d, gameTime);
+        if (quality.drawsSparkles()) {
+            drawSparkles(g2d, gameTime);
+        }
+    }
+    
+    /**
+     * Renders the food sprites for a unit size; safe to call off the event dispatch
+     * thread. Food of that size is painted directly until it has run.
+     */
+    public static void prerender(int unitSize) {
+        Sprites.forUnitSize(unitSize);
     }
     
     /**
      * Draws sparkle particles around the food
      */
     private void drawSparkles(Graphics2D g2d, float gameTime) {
-        g2d.setColor(new Color(255, 255, 255, 200));
-        
         for (int i = 0; i < 4; i++) {
             float angle = (float) ((gameTime * 2 + i * Math.PI / 2) % (2 * Math.PI));
             float sparkleX = x + unitSize / 2 + (float) Math.cos(angle) * unitSize;
             float sparkleY = y + unitSize / 2 + (float) Math.sin(angle) * unitSize;
             
             float sparkleIntensity = (float) (Math.sin(gameTime * 6 + i) * 0.5f + 0.5f);
-            g2d.setColor(new Color(255, 255, 255, (int) (sparkleIntensity * 150)));
-            g2d.fillOval((int) sparkleX - 1, (int) sparkleY - 1, 2, 2);
+            g2d.setColor(SPARKLE_COLORS[(int) (sparkleIntensity * 150)]);
+            // At two pixels a square is indistinguishable from a circle and needs no shape allocation
+            g2d.fillRect((int) sparkleX - 1, (int) sparkleY - 1, 2, 2);
+        }
+    }
+    
+    /**
+     * Pre-rendered glow and body images for one unit size, so drawing the food is a
+     * couple of blits instead of allocating two gradient paints per frame
+     */
+    private static final class Sprites {
+        private static final Map<Integer, Sprites> BY_UNIT_SIZE = new ConcurrentHashMap<>();
+        
+        final BufferedImage glow;
+        final int glowOffset;
+        // By pulsing size, without and with the highlight
+        final BufferedImage[] bodies;
+        final BufferedImage[] highlightedBodies;
+        
+        static Sprites forUnitSize(int unitSize) {
+            return BY_UNIT_SIZE.computeIfAbsent(unitSize, Sprites::new);
+        }
+        
+        /**
+         * Gets the sprites for a unit size if they have been rendered, without rendering them
+         */
+        static Sprites ifReady(int unitSize) {
+            return BY_UNIT_SIZE.get(unitSize);
+        }
+        
+        static int glowSize(int unitSize) {
+            return (int) (unitSize * 1.5f);
         }
+        
+        private Sprites(int unitSize) {
+            int glowSize = glowSize(unitSize);
+            glowOffset = (unitSize - glowSize) / 2;
+            glow = glowSize / 2 > 0 ? renderGlow(unitSize, glowSize, glowOffset) : null;
+            
+            bodies = new BufferedImage[unitSize + 1];
+            highlightedBodies = new BufferedImage[unitSize + 1];
+            for (int size = 1; size <= unitSize; size++) {
+                bodies[size] = renderBody(size, false);
+                highlightedBodies[size] = renderBody(size, true);
+            }
+        }
+        
+        private static BufferedImage renderGlow(int unitSize, int glowSize, int glowOffset) {
+            BufferedImage image = new BufferedImage(glowSize + 1, glowSize + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g2d = createGraphics(image);
+            paintGlow(g2d, unitSize, glowSize, glowOffset);
+            g2d.dispose();
+            return image;
+        }
+        
+        private static BufferedImage renderBody(int size, boolean highlight) {
+            BufferedImage image = new BufferedImage(size + 1, size + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g2d = createGraphics(image);
+            paintBody(g2d, size, highlight);
+            g2d.dispose();
+            return image;
+        }
+        
+        /**
+         * Paints the glow at the origin, into a sprite or straight onto the frame
+         */
+        static void paintGlow(Graphics2D g2d, int unitSize, int glowSize, int glowOffset) {
+            g2d.setPaint(new RadialGradientPaint(
+                unitSize / 2 - glowOffset, unitSize / 2 - glowOffset, glowSize / 2,
+                new float[]{0.0f, 1.0f},
+                new Color[]{GLOW_COLOR, GLOW_EDGE_COLOR}
+            ));
+            g2d.fillOval(0, 0, glowSize, glowSize);
+        }
+        
+        /**
+         * Paints the food body at the origin, into a sprite or straight onto the frame
+         */
+        static void paintBody(Graphics2D g2d, int size, boolean highlight) {
+            g2d.setPaint(new GradientPaint(0, 0, FOOD_HIGHLIGHT, size, size, FOOD_COLOR));
+            g2d.fillOval(1, 1, size - 2, size - 2);
+            if (highlight) {
+                g2d.setColor(BODY_HIGHLIGHT);
+                int highlightSize = size / 3;
+                g2d.fillOval(size / 4, size / 4, highlightSize, highlightSize);
+            }
+        }
+        
+        private static Graphics2D createGraphics(BufferedImage image) {
+            Graphics2D g2d = image.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            return g2d;
+        }
+    }
+    
+    /**
+     * Checks whether a cell holds a wall or a portal of the current level. Food on a
+     * portal entrance could only be reached by arriving through its exit.
+     */
+    private boolean onLevelFeature(int col, int row) {
+        return level != null && (level.isWall(col, row) || level.portalExit(col, row) != -1);
+    }
+    
+    /**
+     * Sets the level whose walls and portals the food keeps off, or null for an open board.
+     * Call generateNewFood afterwards to move food that is already on a wall.
+     */
+    public void setLevel(LevelPack.Level level) {
+        this.level = level;
+    }
+    
+    /**
+     * Moves the food to the given position
+     */
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+    
+    /**
+     * Gets the random generator state, for saving the game
+     */
+    public long getRngState() {
+        return rngState;
+    }
+    
+    /**
+     * Restores the random generator state of a saved game
+     */
+    public void setRngState(long rngState) {
+        this.rngState = rngState;
     }
     
     /**
@@ -0,0 +1,193 @@
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stream of gameplay events from the simulation to any number of consumers, on a
+ * preallocated single-producer ring. Each consumer reads through its own Cursor at
+ * its own pace: on its own thread, batched once a frame, or only now and then.
+ *
+ * The producer never waits. It writes over the oldest slot whether or not every
+ * consumer has read it, so a consumer that falls more than a ring behind skips
+ * ahead and counts the events it lost instead of stalling the game.
+ */
+public class GameEventBus {
+    private static final GameEventType[] TYPES = GameEventType.values();
+
+    private final byte[] types;
+    private final long[] ticks;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] values;
+    private final int mask;
+
+    // Slots the producer has started writing; bumped before a slot is overwritten
+    private final AtomicLong claimed = new AtomicLong();
+    // Slots fully written and readable
+    private final AtomicLong published = new AtomicLong();
+
+    private volatile Cursor[] cursors = new Cursor[0];
+
+    /**
+     * Receives events from a Cursor
+     */
+    public interface Handler {
+        void onEvent(GameEventType type, long tick, int x, int y, int value);
+    }
+
+    /**
+     * Creates a bus that keeps the last capacity events, rounded up to a power of two
+     */
+    public GameEventBus(int capacity) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.types = new byte[size];
+        this.ticks = new long[size];
+        this.xs = new int[size];
+        this.ys = new int[size];
+        this.values = new int[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Publishes an event and wakes any consumer waiting for one. Producer side only.
+     */
+    public void publish(GameEventType type, long tick, int x, int y, int value) {
+        long t = published.get();
+
+        // Tell readers this slot is being overwritten before touching it
+        claimed.set(t + 1);
+        VarHandle.storeStoreFence();
+
+        int slot = (int) t & mask;
+        types[slot] = (byte) type.ordinal();
+        ticks[slot] = tick;
+        xs[slot] = x;
+        ys[slot] = y;
+        values[slot] = value;
+
+        // Volatile store publishes the slot contents, and pairs with Cursor.await
+        published.set(t + 1);
+
+        Cursor[] current = cursors;
+        for (int i = 0; i < current.length; i++) {
+            Thread waiter = current[i].waiter;
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    /**
+     * Adds a consumer that sees every event published from now on
+     */
+    public synchronized Cursor subscribe() {
+        Cursor cursor = new Cursor(published.get());
+        Cursor[] grown = Arrays.copyOf(cursors, cursors.length + 1);
+        grown[cursors.length] = cursor;
+        cursors = grown;
+        return cursor;
+    }
+
+    /**
+     * Subscribes a consumer on its own daemon thread, which sleeps until events arrive
+     * and hands them to handler in order
+     */
+    public Thread startConsumer(String name, Handler handler) {
+        Cursor cursor = subscribe();
+        Thread thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                cursor.await();
+                cursor.poll(handler);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * One consumer's read position. A cursor must only be used by one thread at a time.
+     */
+    public final class Cursor {
+        private long next;
+        private long dropped;
+        private volatile Thread waiter;
+
+        private Cursor(long next) {
+            this.next = next;
+        }
+
+        /**
+         * Hands every pending event to handler and returns how many there were
+         */
+        public int poll(Handler handler) {
+            return poll(handler, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Hands up to max pending events to handler and returns how many there were
+         */
+        public int poll(Handler handler, int max) {
+            int handled = 0;
+            long available = published.get();
+            while (next < available && handled < max) {
+                // Skip whatever the producer has already written over
+                long oldest = claimed.get() - mask - 1;
+                if (next < oldest) {
+                    dropped += oldest - next;
+                    next = oldest;
+                    continue;
+                }
+
+                int slot = (int) next & mask;
+                GameEventType type = TYPES[types[slot]];
+                long tick = ticks[slot];
+                int x = xs[slot];
+                int y = ys[slot];
+                int value = values[slot];
+
+                // If the producer got to this slot while we read it, the copy is torn
+                VarHandle.loadLoadFence();
+                if (claimed.get() - mask - 1 > next) {
+                    continue;
+                }
+
+                next++;
+                handled++;
+                handler.onEvent(type, tick, x, y, value);
+            }
+            return handled;
+        }
+
+        /**
+         * Skips every pending event and clears the dropped count, e.g. when a new game starts
+         */
+        public void skipAll() {
+            next = published.get();
+            dropped = 0;
+        }
+
+        /**
+         * Parks the calling thread until there is an event to poll or it is interrupted
+         */
+        public void await() {
+            if (next < published.get()) {
+                return;
+            }
+            waiter = Thread.currentThread();
+            // Volatile write, then read: either we see the new event or the producer sees us
+            while (next >= published.get() && !Thread.currentThread().isInterrupted()) {
+                LockSupport.park(this);
+            }
+            waiter = null;
+        }
+
+        /**
+         * Gets how many events this consumer missed by falling more than a ring behind
+         */
+        public long getDropped() {
+            return dropped;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Kinds of gameplay event published on the GameEventBus. The meaning of an event's
+ * position and value depends on its type.
+ */
+public enum GameEventType {
+    // Food was eaten at (x, y); value is the new score
+    FOOD_EATEN,
+    // A power-up was taken at (x, y); value is its ItemType ordinal
+    POWER_UP,
+    // The snake turned; value is the new direction
+    TURNED,
+    // The snake grew; value is its new length
+    GREW,
+    // The snake died with its head at (x, y); value is the final score
+    DIED
+}
@@ -2,8 +2,15 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,12 +23,40 @@ public class GamePanel extends JPanel implements ActionListener {
     private static final int UNIT_SIZE = 20;
     private static final int GAME_UNITS = (PANEL_WIDTH * PANEL_HEIGHT) / (UNIT_SIZE * UNIT_SIZE);
     private static final int DELAY = 16; // ~60 FPS
+    private static final int FPS = Math.round(1000f / DELAY);
+    private static final long FRAME_BUDGET_NANOS = DELAY * 1_000_000L * 3 / 4; // leaves room for Swing
+    private static final long AUTOPILOT_BUDGET_NANOS = 2_000_000; // per tick
+    private static final int INPUT_QUEUE_CAPACITY = 16;
+    private static final Path SNAPSHOT_PATH = Paths.get("snake-save.bin");
+    private static final Path REPLAY_PATH = Paths.get("snake-replay.bin");
+    private static final int REWIND_CAPACITY_SECONDS = Integer.getInteger("snake.rewindSeconds", 10);
+    private static final int REWIND_STEP_SECONDS = 3;
+    // Prints per-game diagnostics at game over
+    private static final boolean DEBUG_STATS = Boolean.getBoolean("snake.debugStats");
+    private static final Path HIGH_SCORE_PATH = Paths.get(System.getProperty("snake.highScores", "highscores.log"));
+    private static final int HIGH_SCORE_COUNT = 10;
+    private static final int HIGH_SCORE_COMPACT_THRESHOLD = 10_000;
+    private static final int ITEM_COUNT = Integer.getInteger("snake.items", 0);
+    private static final int POWER_UP_INTERVAL_TICKS = 4000 / DELAY;
+    private static final ItemType[] POWER_UPS = {ItemType.SPEED, ItemType.SHRINK, ItemType.GHOST};
+    private static final int SHRINK_SEGMENTS = 5;
+    private static final int EVENT_BUS_CAPACITY = 1024;
+    private static final Path LEVEL_PACK_PATH = Paths.get(System.getProperty("snake.levels", "levels.snkl"));
     
     // Modern color scheme
     private static final Color BACKGROUND_COLOR = new Color(23, 32, 42);
     private static final Color GRID_COLOR = new Color(52, 73, 94, 100);
     private static final Color UI_COLOR = new Color(236, 240, 241);
     private static final Color ACCENT_COLOR = new Color(46, 204, 113);
+    private static final Color OVERLAY_COLOR = new Color(0, 0, 0, 150);
+    private static final AlphaComposite GHOST_COMPOSITE = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.5f);
+    
+    // Game over screen fonts
+    private static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 48);
+    private static final Font FINAL_SCORE_FONT = new Font("Arial", Font.BOLD, 24);
+    private static final Font MESSAGE_FONT = new Font("Arial", Font.PLAIN, 18);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 64);
+    private static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 16);
     
     private Snake snake;
     private Food food;
@@ -29,24 +64,69 @@ public class GamePanel extends JPanel implements ActionListener {
     private SoundManager soundManager;
     private GameState gameState;
     private Timer timer;
+    private Autopilot autopilot;
+    private HamiltonianSolver solver;
+    private Pilot pilot;
+    private InputQueue inputQueue;
+    private LatencyHistogram inputLatency;
+    private RemoteGame remoteGame;
+    private RewindBuffer rewindBuffer;
+    private Replay replay;
+    private ItemStore items;
+    private LevelPack levelPack;
+    private LevelPack.Level level;
+    private GameEventBus eventBus;
+    private GameEventBus.Cursor particleEvents;
+    private GameEventBus.Cursor statsEvents;
+    private final GameStats gameStats = new GameStats();
+    private final GameEventBus.Handler particleHandler = this::onParticleEvent;
+    private HighScoreStore highScores;
+    private BackgroundLayer backgroundLayer;
+    private final QualityGovernor qualityGovernor = new QualityGovernor(FRAME_BUDGET_NANOS);
+    private long tickNanos;
     
     private int score;
+    private long gameSeed;
+    // Seed of the last game whose score was submitted; rewinding replays the same game
+    private long submittedSeed;
+    private long tick;
+    private long speedUntilTick;
+    private long ghostUntilTick;
     private boolean running;
-    private Font gameFont;
-    private Font scoreFont;
+    
+    // Text rendered once and blitted; numbers are drawn from pre-rendered digit images
+    private final CachedText gameOverText = new CachedText(GAME_OVER_FONT, UI_COLOR, "GAME OVER");
+    private final CachedText finalScoreText = new CachedText(FINAL_SCORE_FONT, UI_COLOR, "Final Score: ");
+    private final CachedText bestText = new CachedText(MESSAGE_FONT, UI_COLOR, "Best: ");
+    private final CachedText restartText = new CachedText(MESSAGE_FONT, UI_COLOR, "Press SPACE to restart or R to rewind");
+    private final CachedText titleText = new CachedText(TITLE_FONT, ACCENT_COLOR, "SNAKE");
+    private final CachedText startText = new CachedText(MESSAGE_FONT, UI_COLOR, "Press SPACE to start");
+    private final CachedText pausedText = new CachedText(GAME_OVER_FONT, UI_COLOR, "PAUSED");
+    private final CachedText resumeText = new CachedText(MESSAGE_FONT, UI_COLOR, "Press P to resume or ESC for the menu");
+    private final CachedText levelText = new CachedText(MESSAGE_FONT, ACCENT_COLOR, "Level ");
+    private final CachedText levelHintText = new CachedText(MESSAGE_FONT, UI_COLOR, "LEFT / RIGHT to choose a level");
+    private HudText hudText;
     
     // Animation variables
     private float gameTime;
     private long lastUpdateTime;
     
     public GamePanel() {
+        this(null);
+    }
+    
+    /**
+     * Creates a panel that mirrors a game hosted on a GameServer, or a local game if remoteGame is null
+     */
+    public GamePanel(RemoteGame remoteGame) {
+        this.remoteGame = remoteGame;
         initializePanel();
         initializeGame();
         startGame();
     }
     
     /**
-     * Sets up the panel properties and fonts
+     * Sets up the panel properties
      */
     private void initializePanel() {
         setPreferredSize(new Dimension(PANEL_WIDTH, PANEL_HEIGHT));
@@ -54,14 +134,85 @@ public class GamePanel extends JPanel implements ActionListener {
         setFocusable(true);
         addKeyListener(new GameKeyAdapter());
         
-        // Initialize fonts
-        try {
-            gameFont = new Font("Arial", Font.BOLD, 20);
-            scoreFont = new Font("Arial", Font.BOLD, 16);
-        } catch (Exception e) {
-            gameFont = new Font(Font.SANS_SERIF, Font.BOLD, 20);
-            scoreFont = new Font(Font.SANS_SERIF, Font.BOLD, 16);
-        }
+        // Pause when the window loses focus so an unattended game does not keep running
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                if (gameState == GameState.PLAYING && remoteGame == null) {
+                    setGameState(GameState.PAUSED);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Loads the HUD text, sprites, audio, the background layer, levels and high scores on a
+     * background thread and swaps them in on the event dispatch thread, so the first frame
+     * does not wait.
+     * Until then the HUD is hidden, the grid is drawn directly and sounds are skipped.
+     */
+    private void warmUpInBackground() {
+        Thread warmup = new Thread(() -> {
+            // Rendering the HUD once here also loads the font machinery before first use
+            HudText loadedHudText = new HudText(SCORE_FONT);
+            
+            // Until these sprites are ready the snake, food and particles are painted directly
+            Snake.prerender(UNIT_SIZE);
+            Food.prerender(UNIT_SIZE);
+            ParticleSystem.prerender();
+            
+            BackgroundLayer loadedBackground = BackgroundLayer.render(PANEL_WIDTH, PANEL_HEIGHT, UNIT_SIZE,
+                BACKGROUND_COLOR, GRID_COLOR);
+            
+            // Mapping the pack reads nothing but its header; the first level is drawn for the menu
+            LevelPack loadedLevelPack = null;
+            LevelPack.Level loadedLevel = null;
+            BackgroundLayer loadedLevelBackground = null;
+            if (Files.isRegularFile(LEVEL_PACK_PATH)) {
+                try {
+                    loadedLevelPack = openLevelPack();
+                    if (loadedLevelPack.getLevelCount() > 0) {
+                        loadedLevel = loadedLevelPack.getLevel(0);
+                        loadedLevelBackground = BackgroundLayer.render(PANEL_WIDTH, PANEL_HEIGHT, UNIT_SIZE,
+                            BACKGROUND_COLOR, GRID_COLOR, loadedLevel);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Levels not available: " + e.getMessage());
+                    loadedLevelPack = null;
+                }
+            }
+            
+            HighScoreStore loadedHighScores = null;
+            try {
+                loadedHighScores = HighScoreStore.open(HIGH_SCORE_PATH, HIGH_SCORE_COUNT, HIGH_SCORE_COMPACT_THRESHOLD);
+                Runtime.getRuntime().addShutdownHook(new Thread(loadedHighScores::close));
+            } catch (IOException e) {
+                System.err.println("High scores not available: " + e.getMessage());
+            }
+            
+            soundManager.warmUp();
+            
+            HighScoreStore finalHighScores = loadedHighScores;
+            LevelPack finalLevelPack = loadedLevelPack;
+            LevelPack.Level finalLevel = loadedLevel;
+            BackgroundLayer finalLevelBackground = loadedLevelBackground;
+            SwingUtilities.invokeLater(() -> {
+                hudText = loadedHudText;
+                backgroundLayer = loadedBackground;
+                highScores = finalHighScores;
+                levelPack = finalLevelPack;
+                
+                // A game already under way keeps its open board
+                if (finalLevel != null && gameState == GameState.MENU) {
+                    level = finalLevel;
+                    backgroundLayer = finalLevelBackground;
+                }
+                repaint();
+                StartupTimer.markWarmedUp();
+            });
+        }, "startup-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
     }
     
     /**
@@ -69,10 +220,21 @@ public class GamePanel extends JPanel implements ActionListener {
      */
     private void initializeGame() {
         snake = new Snake(UNIT_SIZE);
-        food = new Food(UNIT_SIZE, PANEL_WIDTH, PANEL_HEIGHT);
+        gameSeed = System.nanoTime();
+        food = new Food(UNIT_SIZE, PANEL_WIDTH, PANEL_HEIGHT, gameSeed);
         particleSystem = new ParticleSystem();
         soundManager = new SoundManager();
-        gameState = GameState.PLAYING;
+        startEventConsumers();
+        autopilot = new Autopilot(PANEL_WIDTH / UNIT_SIZE, PANEL_HEIGHT / UNIT_SIZE, UNIT_SIZE, AUTOPILOT_BUDGET_NANOS);
+        solver = new HamiltonianSolver(PANEL_WIDTH / UNIT_SIZE, PANEL_HEIGHT / UNIT_SIZE, UNIT_SIZE, AUTOPILOT_BUDGET_NANOS);
+        pilot = Boolean.getBoolean("snake.autopilot") ? autopilot : null;
+        inputQueue = new InputQueue(INPUT_QUEUE_CAPACITY);
+        inputLatency = new LatencyHistogram("key-to-tick");
+        rewindBuffer = new RewindBuffer(REWIND_CAPACITY_SECONDS * 1000 / DELAY, UNIT_SIZE);
+        replay = new Replay(PANEL_WIDTH / UNIT_SIZE, PANEL_HEIGHT / UNIT_SIZE, DELAY, gameSeed);
+        resetItems();
+        warmUpInBackground();
+        gameState = GameState.MENU;
         
         score = 0;
         running = false;
@@ -83,11 +245,56 @@ public class GamePanel extends JPanel implements ActionListener {
     }
     
     /**
-     * Starts the game loop
+     * Creates the gameplay event bus and its consumers. Sounds play on their own
+     * thread, particles are spawned in one batch per frame on the event dispatch
+     * thread, and stats are gathered once a second and at game over.
+     */
+    private void startEventConsumers() {
+        eventBus = new GameEventBus(EVENT_BUS_CAPACITY);
+        particleEvents = eventBus.subscribe();
+        statsEvents = eventBus.subscribe();
+        
+        eventBus.startConsumer("event-audio", (type, eventTick, x, y, value) -> {
+            if (type == GameEventType.FOOD_EATEN || type == GameEventType.POWER_UP) {
+                soundManager.playEatSound();
+            } else if (type == GameEventType.DIED) {
+                soundManager.playGameOverSound();
+            }
+        });
+    }
+    
+    /**
+     * Spawns the particle burst for an event, on the event dispatch thread
+     */
+    private void onParticleEvent(GameEventType type, long eventTick, int x, int y, int value) {
+        if (type == GameEventType.FOOD_EATEN || type == GameEventType.POWER_UP) {
+            particleSystem.createFoodParticles(x, y, UNIT_SIZE);
+        }
+    }
+    
+    /**
+     * Shows the menu, or starts mirroring straight away for a remote game
      */
     public void startGame() {
-        running = true;
-        timer.start();
+        setGameState(remoteGame != null ? GameState.PLAYING : GameState.MENU);
+    }
+    
+    /**
+     * Switches state. The timer only runs while playing; every other state is drawn
+     * once here and then only repainted by input and window events, so an idle game
+     * uses no CPU.
+     */
+    private void setGameState(GameState state) {
+        gameState = state;
+        running = state == GameState.PLAYING;
+        if (running) {
+            // Don't count the time spent idle as one long frame
+            lastUpdateTime = System.currentTimeMillis();
+            timer.start();
+        } else {
+            timer.stop();
+        }
+        repaint();
     }
     
     /**
@@ -95,9 +302,20 @@ public class GamePanel extends JPanel implements ActionListener {
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (running && gameState == GameState.PLAYING) {
+        long tickStart = System.nanoTime();
+        if (remoteGame != null) {
+            // The server runs the simulation; only animations advance locally
+            updateRemote();
+        } else if (running && gameState == GameState.PLAYING) {
             updateGame();
+            
+            // Side effects of this tick's events, batched after the simulation
+            particleEvents.poll(particleHandler);
+            if (DEBUG_STATS && tick % FPS == 0) {
+                statsEvents.poll(gameStats);
+            }
         }
+        tickNanos = System.nanoTime() - tickStart;
         repaint();
     }
     
@@ -109,33 +327,285 @@ public class GamePanel extends JPanel implements ActionListener {
         float deltaTime = (currentTime - lastUpdateTime) / 1000.0f;
         lastUpdateTime = currentTime;
         gameTime += deltaTime;
+        tick++;
         
-        // Update snake
-        snake.update();
+        // Rewind deltas don't cover items, so there is no rewind with items on
+        if (items == null) {
+            rewindBuffer.beginTick(snake, food, score);
+        }
+        
+        // Apply at most one queued turn per tick
+        applyQueuedTurn();
         
         // Update particle system
         particleSystem.update(deltaTime);
         
+        // A speed power-up adds a second move on every other tick
+        int moves = tick < speedUntilTick && tick % 2 == 0 ? 2 : 1;
+        for (int move = 0; move < moves && running; move++) {
+            moveSnake();
+        }
+        
+        if (items != null) {
+            updateItems();
+        } else {
+            rewindBuffer.endTick(snake, food, score);
+        }
+    }
+    
+    /**
+     * Moves the snake one cell and handles whatever it runs into
+     */
+    private void moveSnake() {
+        // Let the autopilot or solver pick the direction before moving
+        if (pilot != null) {
+            char before = snake.getDirection();
+            pilot.steer(snake, food);
+            if (snake.getDirection() != before) {
+                eventBus.publish(GameEventType.TURNED, tick, 0, 0, snake.getDirection());
+            }
+        }
+        
+        // Record the direction actually taken, whoever chose it
+        if (replay != null) {
+            replay.recordTick(snake.getDirection());
+        }
+        
+        // Update snake
+        snake.update();
+        
+        // Step through a portal onto its other end
+        if (level != null) {
+            Point head = snake.getBodyParts().get(0);
+            int exit = level.portalExit(Math.floorDiv(head.x, UNIT_SIZE), Math.floorDiv(head.y, UNIT_SIZE));
+            if (exit >= 0) {
+                snake.moveHead((exit % level.getCols()) * UNIT_SIZE, (exit / level.getCols()) * UNIT_SIZE);
+            }
+        }
+        
         // Check food collision
         if (snake.checkFoodCollision(food.getX(), food.getY())) {
             score++;
             snake.grow();
             
-            // Create particle effect
-            particleSystem.createFoodParticles(food.getX(), food.getY(), UNIT_SIZE);
-            
-            // Play sound effect
-            soundManager.playEatSound();
+            // Sound and particles follow from the events
+            eventBus.publish(GameEventType.FOOD_EATEN, tick, food.getX(), food.getY(), score);
+            eventBus.publish(GameEventType.GREW, tick, 0, 0, snake.getLength());
             
             // Generate new food
             food.generateNewFood(snake.getBodyParts());
         }
         
-        // Check collisions
-        if (snake.checkWallCollision(PANEL_WIDTH, PANEL_HEIGHT) || snake.checkSelfCollision()) {
-            gameState = GameState.GAME_OVER;
-            soundManager.playGameOverSound();
-            running = false;
+        // Check items, a single lookup of the head's cell
+        if (items != null) {
+            Point head = snake.getBodyParts().get(0);
+            ItemType item = items.take(head.x, head.y);
+            if (item != null) {
+                applyItem(item, head);
+            }
+        }
+        
+        // Check collisions; a level's walls include the board edges, and a ghost passes through its own body
+        boolean ghost = tick < ghostUntilTick;
+        boolean hitWall = level != null ? snake.checkWallCollision(level)
+            : snake.checkWallCollision(PANEL_WIDTH, PANEL_HEIGHT);
+        if (hitWall || (!ghost && snake.checkSelfCollision())) {
+            endGame();
+        }
+    }
+    
+    /**
+     * Ends the game after a collision
+     */
+    private void endGame() {
+        setGameState(GameState.GAME_OVER);
+        Point head = snake.getBodyParts().get(0);
+        eventBus.publish(GameEventType.DIED, tick, head.x, head.y, score);
+        
+        if (highScores != null && submittedSeed != gameSeed) {
+            submittedSeed = gameSeed;
+            highScores.submit(new HighScoreStore.HighScore(score, snake.getLength(),
+                (long) (gameTime * 1000), gameSeed, System.currentTimeMillis()));
+        }
+        
+        saveReplay();
+        
+        if (DEBUG_STATS && inputLatency.getCount() > 0) {
+            System.out.println(inputLatency.summary());
+        }
+        
+        if (DEBUG_STATS) {
+            statsEvents.poll(gameStats);
+            System.out.println(gameStats.summary(statsEvents.getDropped()));
+        }
+    }
+    
+    /**
+     * Applies the effect of an item the snake's head has reached
+     */
+    private void applyItem(ItemType item, Point head) {
+        switch (item) {
+            case FOOD:
+                score++;
+                snake.grow();
+                items.spawn(ItemType.FOOD, 0, tick, snake.getBodyParts(), food.getX(), food.getY());
+                eventBus.publish(GameEventType.FOOD_EATEN, tick, head.x, head.y, score);
+                eventBus.publish(GameEventType.GREW, tick, 0, 0, snake.getLength());
+                return;
+            case SPEED:
+                speedUntilTick = tick + item.getEffectMillis() / DELAY;
+                break;
+            case SHRINK:
+                snake.shrink(SHRINK_SEGMENTS);
+                break;
+            case GHOST:
+                ghostUntilTick = tick + item.getEffectMillis() / DELAY;
+                break;
+        }
+        eventBus.publish(GameEventType.POWER_UP, tick, head.x, head.y, item.ordinal());
+    }
+    
+    /**
+     * Maps the level pack and checks it was made for this board. Safe to call off the event dispatch thread.
+     */
+    private static LevelPack openLevelPack() throws IOException {
+        LevelPack pack = LevelPack.open(LEVEL_PACK_PATH);
+        if (pack.getCols() != PANEL_WIDTH / UNIT_SIZE || pack.getRows() != PANEL_HEIGHT / UNIT_SIZE) {
+            throw new IOException("pack is for a " + pack.getCols() + "x" + pack.getRows() + " board");
+        }
+        return pack;
+    }
+    
+    /**
+     * Switches to the level a snapshot was saved on, or to the open board for -1.
+     * Returns false, leaving the current level, if that level is not available.
+     */
+    private boolean restoreLevel(int index) {
+        if (index < 0) {
+            if (level != null) {
+                level = null;
+                backgroundLayer = BackgroundLayer.render(PANEL_WIDTH, PANEL_HEIGHT, UNIT_SIZE, BACKGROUND_COLOR, GRID_COLOR);
+            }
+            return true;
+        }
+        if (levelPack == null || index >= levelPack.getLevelCount()) {
+            System.err.println("Could not load game: level " + (index + 1) + " is not available");
+            return false;
+        }
+        selectLevel(index);
+        return level != null && level.getIndex() == index;
+    }
+    
+    /**
+     * Switches to a level of the pack, wrapping around at either end. A level is a view
+     * of the mapped file, so switching parses nothing; only the background is redrawn.
+     */
+    private void selectLevel(int index) {
+        if (levelPack == null || levelPack.getLevelCount() == 0) {
+            return;
+        }
+        int wrapped = Math.floorMod(index, levelPack.getLevelCount());
+        try {
+            level = levelPack.getLevel(wrapped);
+        } catch (IOException e) {
+            System.err.println("Could not load level " + wrapped + ": " + e.getMessage());
+            return;
+        }
+        backgroundLayer = BackgroundLayer.render(PANEL_WIDTH, PANEL_HEIGHT, UNIT_SIZE, BACKGROUND_COLOR, GRID_COLOR, level);
+        repaint();
+    }
+    
+    /**
+     * Keeps a new game's food off the selected level's walls. Replays assume an open
+     * board, so a game on a level is not recorded.
+     */
+    private void applyLevel() {
+        food.setLevel(level);
+        if (level != null) {
+            food.generateNewFood(snake.getBodyParts());
+            replay = null;
+        }
+    }
+    
+    /**
+     * Expires old power-ups and puts out a new one every few seconds
+     */
+    private void updateItems() {
+        items.advance(tick);
+        
+        if (tick % POWER_UP_INTERVAL_TICKS == 0) {
+            ItemType type = POWER_UPS[(int) (tick / POWER_UP_INTERVAL_TICKS % POWER_UPS.length)];
+            items.spawn(type, type.getLifetimeMillis() / DELAY, tick, snake.getBodyParts(), food.getX(), food.getY());
+        }
+    }
+    
+    /**
+     * Sets up the items for a new game when -Dsnake.items asks for extra food. Replays
+     * don't record items, so a game with items is not recorded.
+     */
+    private void resetItems() {
+        tick = 0;
+        speedUntilTick = 0;
+        ghostUntilTick = 0;
+        if (ITEM_COUNT <= 0) {
+            items = null;
+            return;
+        }
+        
+        items = new ItemStore(PANEL_WIDTH / UNIT_SIZE, PANEL_HEIGHT / UNIT_SIZE, UNIT_SIZE, gameSeed);
+        items.setLevel(level);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.spawn(ItemType.FOOD, 0, tick, snake.getBodyParts(), food.getX(), food.getY());
+        }
+        replay = null;
+    }
+    
+    /**
+     * Steps the game back a few seconds from game over and pauses there
+     */
+    private void rewind() {
+        if (rewindBuffer.size() == 0) {
+            return;
+        }
+        
+        int ticks = Math.min(REWIND_STEP_SECONDS * 1000 / DELAY, rewindBuffer.size());
+        score = rewindBuffer.rewind(ticks, snake, food, score);
+        if (replay != null) {
+            replay.truncate(ticks);
+        }
+        particleSystem.clear();
+        inputQueue.clear();
+        solver.reset();
+        
+        setGameState(GameState.PAUSED);
+    }
+    
+    /**
+     * Advances local animation time while mirroring a server
+     */
+    private void updateRemote() {
+        long currentTime = System.currentTimeMillis();
+        gameTime += (currentTime - lastUpdateTime) / 1000.0f;
+        lastUpdateTime = currentTime;
+        
+        if (!remoteGame.isConnected() && gameState == GameState.PLAYING) {
+            setGameState(GameState.GAME_OVER);
+        }
+    }
+    
+    /**
+     * Takes the next queued turn that actually changes direction and applies it.
+     * Repeats of the current direction and reversals are discarded without using up the tick.
+     */
+    private void applyQueuedTurn() {
+        char turn;
+        while ((turn = inputQueue.poll()) != 0) {
+            if (snake.changesDirection(turn)) {
+                snake.setDirection(turn);
+                eventBus.publish(GameEventType.TURNED, tick, 0, 0, turn);
+                inputLatency.record(System.nanoTime() - inputQueue.getLastEventNanos());
+                return;
+            }
         }
     }
     
@@ -144,35 +614,73 @@ public class GamePanel extends JPanel implements ActionListener {
      */
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        // What the panel's UI delegate would do, without JComponent cloning the Graphics every frame
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        
+        long paintStart = System.nanoTime();
+        RenderQuality quality = qualityGovernor.getQuality();
         
         Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, quality.isAntialiased()
+            ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         
         if (gameState == GameState.PLAYING) {
-            drawGame(g2d);
+            drawGame(g2d, quality);
+        } else if (gameState == GameState.PAUSED) {
+            drawGame(g2d, quality);
+            drawPaused(g2d);
+        } else if (gameState == GameState.MENU) {
+            drawGrid(g2d);
+            drawMenu(g2d);
         } else if (gameState == GameState.GAME_OVER) {
             drawGameOver(g2d);
         }
         
         drawUI(g2d);
+        
+        StartupTimer.markFirstFrame();
+        
+        // Only frames with a live game say anything about the cost of drawing it
+        if (gameState == GameState.PLAYING) {
+            qualityGovernor.record(tickNanos + System.nanoTime() - paintStart);
+        }
     }
     
     /**
      * Draws the main game elements
      */
-    private void drawGame(Graphics2D g2d) {
+    private void drawGame(Graphics2D g2d, RenderQuality quality) {
         // Draw subtle grid
         drawGrid(g2d);
         
+        // A remote game draws the server's board instead of the local one
+        if (remoteGame != null) {
+            remoteGame.draw(g2d, gameTime, quality);
+            return;
+        }
+        
+        // Draw extra food and power-ups
+        if (items != null) {
+            items.draw(g2d, tick, quality);
+        }
+        
         // Draw food with glow effect
-        food.draw(g2d, gameTime);
+        food.draw(g2d, gameTime, quality);
         
-        // Draw snake with modern styling
-        snake.draw(g2d, gameTime);
+        // Draw snake with modern styling, see-through while it is a ghost
+        if (tick < ghostUntilTick) {
+            Composite composite = g2d.getComposite();
+            g2d.setComposite(GHOST_COMPOSITE);
+            snake.draw(g2d, gameTime, quality);
+            g2d.setComposite(composite);
+        } else {
+            snake.draw(g2d, gameTime, quality);
+        }
         
         // Draw particle effects
+        particleSystem.setMaxParticles(quality.particleCap(ParticleSystem.MAX_PARTICLES));
         particleSystem.draw(g2d);
     }
     
@@ -180,6 +688,11 @@ public class GamePanel extends JPanel implements ActionListener {
      * Draws a subtle grid background
      */
     private void drawGrid(Graphics2D g2d) {
+        if (backgroundLayer != null) {
+            backgroundLayer.draw(g2d);
+            return;
+        }
+        
         g2d.setColor(GRID_COLOR);
         g2d.setStroke(new BasicStroke(1));
         
@@ -199,69 +712,261 @@ public class GamePanel extends JPanel implements ActionListener {
      */
     private void drawGameOver(Graphics2D g2d) {
         // Draw semi-transparent overlay
-        g2d.setColor(new Color(0, 0, 0, 150));
+        g2d.setColor(OVERLAY_COLOR);
         g2d.fillRect(0, 0, PANEL_WIDTH, PANEL_HEIGHT);
         
+        int centerX = PANEL_WIDTH / 2;
+        
         // Draw game over text
-        g2d.setColor(UI_COLOR);
-        g2d.setFont(new Font("Arial", Font.BOLD, 48));
-        FontMetrics metrics = g2d.getFontMetrics();
-        String gameOverText = "GAME OVER";
-        int x = (PANEL_WIDTH - metrics.stringWidth(gameOverText)) / 2;
-        int y = PANEL_HEIGHT / 2 - 50;
-        g2d.drawString(gameOverText, x, y);
+        gameOverText.drawCentered(g2d, centerX, PANEL_HEIGHT / 2 - 50);
         
         // Draw final score
-        g2d.setFont(new Font("Arial", Font.BOLD, 24));
-        metrics = g2d.getFontMetrics();
-        String finalScoreText = "Final Score: " + score;
-        x = (PANEL_WIDTH - metrics.stringWidth(finalScoreText)) / 2;
-        y = PANEL_HEIGHT / 2 + 10;
-        g2d.drawString(finalScoreText, x, y);
+        finalScoreText.drawCentered(g2d, score, centerX, PANEL_HEIGHT / 2 + 10);
+        
+        // Draw best score
+        if (highScores != null) {
+            bestText.drawCentered(g2d, highScores.getBestScore(), centerX, PANEL_HEIGHT / 2 + 40);
+        }
         
         // Draw restart instruction
-        g2d.setFont(new Font("Arial", Font.PLAIN, 18));
-        metrics = g2d.getFontMetrics();
-        String restartText = "Press SPACE to restart";
-        x = (PANEL_WIDTH - metrics.stringWidth(restartText)) / 2;
-        y = PANEL_HEIGHT / 2 + 50;
-        g2d.drawString(restartText, x, y);
+        restartText.drawCentered(g2d, centerX, PANEL_HEIGHT / 2 + 80);
+    }
+    
+    /**
+     * Draws the start menu
+     */
+    private void drawMenu(Graphics2D g2d) {
+        int centerX = PANEL_WIDTH / 2;
+        titleText.drawCentered(g2d, centerX, PANEL_HEIGHT / 2 - 40);
+        
+        if (highScores != null) {
+            bestText.drawCentered(g2d, highScores.getBestScore(), centerX, PANEL_HEIGHT / 2 + 20);
+        }
+        
+        startText.drawCentered(g2d, centerX, PANEL_HEIGHT / 2 + 60);
+        
+        if (levelPack != null) {
+            if (level != null) {
+                levelText.drawCentered(g2d, level.getIndex() + 1, centerX, PANEL_HEIGHT / 2 + 100);
+            }
+            levelHintText.drawCentered(g2d, centerX, PANEL_HEIGHT / 2 + 130);
+        }
+    }
+    
+    /**
+     * Draws the pause overlay over the frozen game
+     */
+    private void drawPaused(Graphics2D g2d) {
+        g2d.setColor(OVERLAY_COLOR);
+        g2d.fillRect(0, 0, PANEL_WIDTH, PANEL_HEIGHT);
+        
+        int centerX = PANEL_WIDTH / 2;
+        pausedText.drawCentered(g2d, centerX, PANEL_HEIGHT / 2 - 20);
+        resumeText.drawCentered(g2d, centerX, PANEL_HEIGHT / 2 + 30);
     }
     
     /**
      * Draws the UI elements (score, etc.)
      */
     private void drawUI(Graphics2D g2d) {
-        g2d.setColor(UI_COLOR);
-        g2d.setFont(scoreFont);
-        FontMetrics metrics = g2d.getFontMetrics();
+        // Fonts are still loading in the background
+        if (hudText == null) {
+            return;
+        }
+        
+        int y = hudText.baseline;
         
         // Draw score
-        String scoreText = "Score: " + score;
-        g2d.drawString(scoreText, 10, metrics.getHeight() + 5);
+        if (remoteGame != null) {
+            hudText.length.draw(g2d, remoteGame.getLength(), 10, y);
+            hudText.players.draw(g2d, remoteGame.getPlayerCount(),
+                10 + hudText.length.getWidth(remoteGame.getLength()), y);
+        } else {
+            hudText.score.draw(g2d, score, 10, y);
+        }
         
         // Draw FPS (for debugging)
         if (running) {
-            String fpsText = "FPS: " + Math.round(1000.0 / DELAY);
-            g2d.drawString(fpsText, PANEL_WIDTH - metrics.stringWidth(fpsText) - 10, metrics.getHeight() + 5);
+            hudText.fps.draw(g2d, FPS, PANEL_WIDTH - hudText.fps.getWidth(FPS) - 10, y);
+        }
+    }
+    
+    /**
+     * Cached HUD labels in the score font
+     */
+    private static class HudText {
+        final CachedText score;
+        final CachedText length;
+        final CachedText players;
+        final CachedText fps;
+        final int baseline;
+        
+        HudText(Font font) {
+            score = new CachedText(font, UI_COLOR, "Score: ");
+            length = new CachedText(font, UI_COLOR, "Length: ");
+            players = new CachedText(font, UI_COLOR, "  Players: ");
+            fps = new CachedText(font, UI_COLOR, "FPS: ");
+            
+            // Render the common cases up front, off the event dispatch thread
+            score.getWidth(0);
+            fps.getWidth(FPS);
+            
+            BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = scratch.createGraphics();
+            baseline = g2d.getFontMetrics(font).getHeight() + 5;
+            g2d.dispose();
         }
     }
     
+    /**
+     * Starts a new game steered by the Hamiltonian solver that only advances through
+     * tickOnce. Used by AllocationGuard to drive the real tick and paint paths.
+     */
+    void startSolverGame() {
+        restartGame();
+        timer.stop();
+        solver.reset();
+        pilot = solver;
+    }
+    
+    /**
+     * Runs one timer tick and returns whether the game is still being played
+     */
+    boolean tickOnce() {
+        actionPerformed(null);
+        return gameState == GameState.PLAYING;
+    }
+    
+    /**
+     * Paints one frame into g2d as Swing would
+     */
+    void paintFrame(Graphics2D g2d) {
+        paintComponent(g2d);
+    }
+    
+    /**
+     * Checks whether the background warm-up has been swapped in
+     */
+    boolean isWarmedUp() {
+        return hudText != null;
+    }
+    
+    int getSnakeLength() {
+        return snake.getLength();
+    }
+    
+    int getUnitSize() {
+        return UNIT_SIZE;
+    }
+    
     /**
      * Restarts the game
      */
     private void restartGame() {
+        if (remoteGame != null) {
+            return;
+        }
+        
         snake = new Snake(UNIT_SIZE);
-        food = new Food(UNIT_SIZE, PANEL_WIDTH, PANEL_HEIGHT);
+        gameSeed = System.nanoTime();
+        food = new Food(UNIT_SIZE, PANEL_WIDTH, PANEL_HEIGHT, gameSeed);
         particleSystem = new ParticleSystem();
         
         score = 0;
-        running = true;
-        gameState = GameState.PLAYING;
         gameTime = 0;
-        lastUpdateTime = System.currentTimeMillis();
+        inputQueue.clear();
+        inputLatency.reset();
+        // Events from the last game must not count toward this one
+        statsEvents.skipAll();
+        gameStats.reset();
+        rewindBuffer.clear();
+        replay = new Replay(PANEL_WIDTH / UNIT_SIZE, PANEL_HEIGHT / UNIT_SIZE, DELAY, gameSeed);
+        applyLevel();
+        resetItems();
         
-        timer.start();
+        setGameState(GameState.PLAYING);
+    }
+    
+    /**
+     * Writes the current game to the snapshot file
+     */
+    private void saveSnapshot() {
+        try {
+            GameSnapshot.capture(snake, food, score, UNIT_SIZE, PANEL_WIDTH / UNIT_SIZE, PANEL_HEIGHT / UNIT_SIZE,
+                level).write(SNAPSHOT_PATH);
+        } catch (IOException e) {
+            System.err.println("Could not save game: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes the finished game's recording for ReplayExporter
+     */
+    private void saveReplay() {
+        if (replay == null) {
+            return;
+        }
+        try {
+            replay.write(REPLAY_PATH);
+        } catch (IOException e) {
+            System.err.println("Could not save replay: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Restores the game from the snapshot file and resumes play
+     */
+    private void loadSnapshot() {
+        GameSnapshot snapshot;
+        try {
+            snapshot = GameSnapshot.read(SNAPSHOT_PATH);
+        } catch (IOException e) {
+            System.err.println("Could not load game: " + e.getMessage());
+            return;
+        }
+        if (snapshot.getCols() != PANEL_WIDTH / UNIT_SIZE || snapshot.getRows() != PANEL_HEIGHT / UNIT_SIZE) {
+            System.err.println("Could not load game: saved for a " + snapshot.getCols() + "x" + snapshot.getRows() + " board");
+            return;
+        }
+        if (!restoreLevel(snapshot.getLevelIndex())) {
+            return;
+        }
+        
+        // Everything the snapshot does not hold starts over as in a new game
+        snake = snapshot.toSnake(UNIT_SIZE);
+        gameSeed = System.nanoTime();
+        snapshot.restoreFood(food, UNIT_SIZE);
+        food.setLevel(level);
+        particleSystem.clear();
+        gameTime = 0;
+        inputQueue.clear();
+        inputLatency.reset();
+        statsEvents.skipAll();
+        gameStats.reset();
+        solver.reset();
+        rewindBuffer.clear();
+        
+        // Clears the items and the power-up timers and restarts the tick count
+        resetItems();
+        
+        // A replay can only start from a new game
+        replay = null;
+        
+        score = snapshot.getScore();
+        setGameState(GameState.PLAYING);
+    }
+    
+    /**
+     * Queues a turn for the simulation, timestamped with when the key was pressed
+     */
+    private void queueTurn(char direction, KeyEvent e) {
+        if (remoteGame != null) {
+            remoteGame.sendDirection(direction);
+            return;
+        }
+        // KeyEvent.getWhen() is wall-clock milliseconds; carry its age over to the nanoTime clock
+        long ageNanos = Math.max(0, System.currentTimeMillis() - e.getWhen()) * 1_000_000;
+        inputQueue.offer(direction, System.nanoTime() - ageNanos);
     }
     
     /**
@@ -272,30 +977,76 @@ public class GamePanel extends JPanel implements ActionListener {
         public void keyPressed(KeyEvent e) {
             int keyCode = e.getKeyCode();
             
+            // Quick save and load
+            if (remoteGame == null) {
+                if (keyCode == KeyEvent.VK_F5 && (gameState == GameState.PLAYING || gameState == GameState.PAUSED)) {
+                    saveSnapshot();
+                } else if (keyCode == KeyEvent.VK_F9) {
+                    loadSnapshot();
+                    return;
+                }
+            }
+            
             if (gameState == GameState.PLAYING) {
                 // Handle movement
                 switch (keyCode) {
                     case KeyEvent.VK_LEFT:
                     case KeyEvent.VK_A:
-                        snake.setDirection('L');
+                        queueTurn('L', e);
                         break;
                     case KeyEvent.VK_RIGHT:
                     case KeyEvent.VK_D:
-                        snake.setDirection('R');
+                        queueTurn('R', e);
                         break;
                     case KeyEvent.VK_UP:
                     case KeyEvent.VK_W:
-                        snake.setDirection('U');
+                        queueTurn('U', e);
                         break;
                     case KeyEvent.VK_DOWN:
                     case KeyEvent.VK_S:
-                        snake.setDirection('D');
+                        queueTurn('D', e);
+                        break;
+                    case KeyEvent.VK_B:
+                        pilot = pilot == autopilot ? null : autopilot;
                         break;
+                    case KeyEvent.VK_H:
+                        solver.reset();
+                        pilot = pilot == solver ? null : solver;
+                        break;
+                    case KeyEvent.VK_P:
+                    case KeyEvent.VK_ESCAPE:
+                        if (remoteGame == null) {
+                            setGameState(GameState.PAUSED);
+                        }
+                        break;
+                }
+                return;
+            }
+            
+            if (gameState == GameState.PAUSED) {
+                if (keyCode == KeyEvent.VK_P || keyCode == KeyEvent.VK_SPACE) {
+                    inputQueue.clear();
+                    setGameState(GameState.PLAYING);
+                } else if (keyCode == KeyEvent.VK_ESCAPE) {
+                    setGameState(GameState.MENU);
+                }
+            } else if (gameState == GameState.MENU) {
+                if (keyCode == KeyEvent.VK_SPACE || keyCode == KeyEvent.VK_ENTER) {
+                    restartGame();
+                } else if (levelPack != null && (keyCode == KeyEvent.VK_LEFT || keyCode == KeyEvent.VK_A)) {
+                    // After an open-board game was loaded the picker starts again from the first level
+                    selectLevel(level != null ? level.getIndex() - 1 : 0);
+                } else if (levelPack != null && (keyCode == KeyEvent.VK_RIGHT || keyCode == KeyEvent.VK_D)) {
+                    selectLevel(level != null ? level.getIndex() + 1 : 0);
                 }
             } else if (gameState == GameState.GAME_OVER) {
                 // Handle restart
                 if (keyCode == KeyEvent.VK_SPACE) {
                     restartGame();
+                } else if (keyCode == KeyEvent.VK_R && remoteGame == null) {
+                    rewind();
+                } else if (keyCode == KeyEvent.VK_ESCAPE && remoteGame == null) {
+                    setGameState(GameState.MENU);
                 }
             }
         }
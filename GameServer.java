@@ -0,0 +1,576 @@
+import java.awt.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Authoritative multiplayer server. A single thread runs a non-blocking selector
+ * and the simulation at a fixed tick; every tick the changes (head moves, tail pops,
+ * food spawns, deaths) are encoded once into a frame and copied into each client's
+ * pooled direct output buffer, instead of sending full boards.
+ *
+ * Usage: java GameServer [port] [cols] [rows] [tickMillis]
+ */
+public class GameServer {
+    private static final int MAX_PLAYERS = 4096;
+    private static final int OUTPUT_BUFFER_SIZE = 256 * 1024;
+    private static final int INPUT_BUFFER_SIZE = 256;
+    private static final int INPUT_QUEUE_CAPACITY = 4;
+    private static final int RESPAWN_TICKS = 30;
+    private static final int SPAWN_ATTEMPTS = 32;
+    private static final int PLAYERS_PER_FOOD = 2;
+    private static final long STATS_INTERVAL_NANOS = 5_000_000_000L;
+
+    private final int cols;
+    private final int rows;
+    private final long tickNanos;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final BufferPool outputPool = new BufferPool(OUTPUT_BUFFER_SIZE, MAX_PLAYERS);
+    private final BufferPool inputPool = new BufferPool(INPUT_BUFFER_SIZE, MAX_PLAYERS);
+    private final Random random = new Random();
+
+    // Connected players; ids index into players and are recycled through freeIds
+    private final Player[] players = new Player[MAX_PLAYERS];
+    private final List<Player> connected = new ArrayList<>();
+    private final int[] freeIds = new int[MAX_PLAYERS];
+    private int freeIdCount;
+
+    // Board state: how many segments cover each cell, and where the food is
+    private final int[] occupancy;
+    private final int[] foodIndex;
+    private final int[] foodCells;
+    private int foodCount;
+
+    // Frame being built for the current tick
+    private ByteBuffer frame = ByteBuffer.allocateDirect(64 * 1024);
+    private int eventCount;
+    private int tick;
+
+    private final LatencyHistogram tickTimes = new LatencyHistogram("server tick");
+    private volatile boolean running = true;
+
+    /**
+     * Per-connection state
+     */
+    private static class Player {
+        final int id;
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in;
+        final ByteBuffer out;
+        final InputQueue input = new InputQueue(INPUT_QUEUE_CAPACITY);
+        Snake snake;
+        boolean dying;
+        boolean closed;
+        int respawnTick;
+
+        Player(int id, SocketChannel channel, SelectionKey key, ByteBuffer in, ByteBuffer out) {
+            this.id = id;
+            this.channel = channel;
+            this.key = key;
+            this.in = in;
+            this.out = out;
+        }
+    }
+
+    public GameServer(int port, int cols, int rows, int tickMillis) throws IOException {
+        if (cols > Short.MAX_VALUE || rows > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Board too large: " + cols + "x" + rows);
+        }
+        this.cols = cols;
+        this.rows = rows;
+        this.tickNanos = tickMillis * 1_000_000L;
+        this.occupancy = new int[cols * rows];
+        this.foodIndex = new int[cols * rows];
+        this.foodCells = new int[cols * rows];
+        Arrays.fill(foodIndex, -1);
+
+        for (int id = MAX_PLAYERS - 1; id >= 0; id--) {
+            freeIds[freeIdCount++] = id;
+        }
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Runs the network loop and the simulation until stop is called
+     */
+    public void run() throws IOException {
+        long nextTick = System.nanoTime() + tickNanos;
+        long nextStats = System.nanoTime() + STATS_INTERVAL_NANOS;
+
+        while (running) {
+            long wait = nextTick - System.nanoTime();
+            if (wait > 1_000_000) {
+                selector.select(wait / 1_000_000);
+            } else {
+                selector.selectNow();
+            }
+            handleSelectedKeys();
+
+            long now = System.nanoTime();
+            if (now >= nextTick) {
+                tick();
+                tickTimes.record(System.nanoTime() - now);
+                // Skip ticks rather than bursting if the server fell behind
+                nextTick = Math.max(nextTick + tickNanos, now);
+            }
+            if (now >= nextStats) {
+                System.out.println(connected.size() + " clients, " + tickTimes.summary());
+                tickTimes.reset();
+                nextStats = now + STATS_INTERVAL_NANOS;
+            }
+        }
+
+        for (int i = connected.size() - 1; i >= 0; i--) {
+            disconnect(connected.get(i));
+        }
+        removeClosedPlayers();
+        serverChannel.close();
+        selector.close();
+    }
+
+    /**
+     * Asks the loop to exit after the current iteration
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void handleSelectedKeys() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Player player = (Player) key.attachment();
+            if (player.closed) {
+                continue;
+            }
+            if (key.isReadable()) {
+                read(player);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(player);
+            }
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            if (freeIdCount == 0) {
+                channel.close();
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+        } catch (IOException e) {
+            System.err.println("Could not accept client: " + e.getMessage());
+            return;
+        }
+
+        try {
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            Player player = new Player(freeIds[--freeIdCount], channel, key, inputPool.acquire(), outputPool.acquire());
+            key.attach(player);
+            players[player.id] = player;
+            connected.add(player);
+            sendWelcome(player);
+        } catch (IOException e) {
+            System.err.println("Could not register client: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads direction bytes into the player's input queue
+     */
+    private void read(Player player) {
+        int count;
+        try {
+            count = player.channel.read(player.in);
+        } catch (IOException e) {
+            count = -1;
+        }
+        if (count < 0) {
+            disconnect(player);
+            return;
+        }
+
+        player.in.flip();
+        long nanos = System.nanoTime();
+        while (player.in.hasRemaining()) {
+            char direction = (char) player.in.get();
+            // Clients send nothing but direction bytes; anything else is a broken or hostile client
+            if (direction != 'U' && direction != 'D' && direction != 'L' && direction != 'R') {
+                disconnect(player);
+                return;
+            }
+            player.input.offer(direction, nanos);
+        }
+        player.in.clear();
+    }
+
+    /**
+     * Sends the player its id and the full current board as one frame
+     */
+    private void sendWelcome(Player player) {
+        beginFrame();
+        ensureCapacity(NetProtocol.WELCOME_SIZE);
+        frame.put(NetProtocol.WELCOME).putShort((short) player.id).putShort((short) cols).putShort((short) rows);
+        eventCount++;
+
+        for (int i = 0; i < connected.size(); i++) {
+            Player other = connected.get(i);
+            if (other.snake != null) {
+                putJoin(other);
+            }
+        }
+        for (int i = 0; i < foodCount; i++) {
+            putCellEvent(NetProtocol.FOOD, foodCells[i]);
+        }
+
+        if (!enqueue(player, endFrame())) {
+            disconnect(player);
+        } else {
+            flush(player);
+        }
+    }
+
+    /**
+     * Advances the simulation by one tick and broadcasts what changed
+     */
+    private void tick() {
+        tick++;
+        beginFrame();
+        removeClosedPlayers();
+
+        for (int i = 0; i < connected.size(); i++) {
+            Player player = connected.get(i);
+            if (player.snake == null && tick >= player.respawnTick) {
+                spawn(player);
+            }
+        }
+
+        // Move every snake first so that tails vacate before heads claim cells
+        for (int i = 0; i < connected.size(); i++) {
+            Player player = connected.get(i);
+            if (player.snake != null) {
+                move(player);
+            }
+        }
+        for (int i = 0; i < connected.size(); i++) {
+            Player player = connected.get(i);
+            if (player.snake != null && !player.dying) {
+                Point head = player.snake.getBodyParts().get(0);
+                occupancy[head.y * cols + head.x]++;
+                putHead(player.id, head.x, head.y);
+            }
+        }
+        for (int i = 0; i < connected.size(); i++) {
+            Player player = connected.get(i);
+            if (player.snake != null && !player.dying) {
+                resolveHead(player);
+            }
+        }
+        for (int i = 0; i < connected.size(); i++) {
+            Player player = connected.get(i);
+            if (player.dying) {
+                kill(player);
+            }
+        }
+
+        int foodTarget = 1 + connected.size() / PLAYERS_PER_FOOD;
+        for (int attempts = 0; foodCount < foodTarget && attempts < SPAWN_ATTEMPTS; attempts++) {
+            spawnFood();
+        }
+
+        broadcast(endFrame());
+    }
+
+    /**
+     * Applies one queued turn and moves the snake, releasing its tail cell if it was dropped
+     */
+    private void move(Player player) {
+        Snake snake = player.snake;
+        char turn;
+        while ((turn = player.input.poll()) != 0) {
+            if (snake.changesDirection(turn)) {
+                snake.setDirection(turn);
+                break;
+            }
+        }
+
+        // Snake.update recycles the tail Point as the new head, so take the cell index first
+        List<Point> body = snake.getBodyParts();
+        int sizeBefore = body.size();
+        Point tail = body.get(sizeBefore - 1);
+        int tailCell = tail.y * cols + tail.x;
+        snake.update();
+
+        if (body.size() == sizeBefore) {
+            occupancy[tailCell]--;
+            ensureCapacity(NetProtocol.TAIL_SIZE);
+            frame.put(NetProtocol.TAIL).putShort((short) player.id);
+            eventCount++;
+        }
+        player.dying = snake.checkWallCollision(cols, rows);
+    }
+
+    /**
+     * Kills snakes whose head shares a cell with any segment, or lets them eat
+     */
+    private void resolveHead(Player player) {
+        Point head = player.snake.getBodyParts().get(0);
+        int cell = head.y * cols + head.x;
+        if (occupancy[cell] > 1) {
+            player.dying = true;
+        } else if (foodIndex[cell] >= 0) {
+            player.snake.grow();
+            removeFood(cell);
+            putCellEvent(NetProtocol.EAT, cell);
+        }
+    }
+
+    private void kill(Player player) {
+        List<Point> body = player.snake.getBodyParts();
+        for (int i = 0; i < body.size(); i++) {
+            Point part = body.get(i);
+            if (part.x >= 0 && part.x < cols && part.y >= 0 && part.y < rows) {
+                occupancy[part.y * cols + part.x]--;
+            }
+        }
+
+        player.snake = null;
+        player.dying = false;
+        player.respawnTick = tick + RESPAWN_TICKS;
+
+        ensureCapacity(NetProtocol.DIE_SIZE);
+        frame.put(NetProtocol.DIE).putShort((short) player.id);
+        eventCount++;
+    }
+
+    /**
+     * Places a new three-segment snake heading right on a free stretch of the board
+     */
+    private void spawn(Player player) {
+        if (cols < 6) {
+            return;
+        }
+        for (int attempt = 0; attempt < SPAWN_ATTEMPTS; attempt++) {
+            int x = 2 + random.nextInt(cols - 5);
+            int y = random.nextInt(rows);
+            boolean free = true;
+            for (int dx = -2; dx <= 3 && free; dx++) {
+                int cell = y * cols + x + dx;
+                free = occupancy[cell] == 0 && foodIndex[cell] < 0;
+            }
+            if (!free) {
+                continue;
+            }
+
+            List<Point> body = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                body.add(new Point(x - i, y));
+                occupancy[y * cols + x - i]++;
+            }
+            player.snake = new Snake(1, body, 'R');
+            player.input.clear();
+            putJoin(player);
+            return;
+        }
+    }
+
+    private void spawnFood() {
+        int cell = random.nextInt(cols * rows);
+        if (occupancy[cell] != 0 || foodIndex[cell] >= 0) {
+            return;
+        }
+        foodIndex[cell] = foodCount;
+        foodCells[foodCount++] = cell;
+        putCellEvent(NetProtocol.FOOD, cell);
+    }
+
+    private void removeFood(int cell) {
+        int index = foodIndex[cell];
+        int last = foodCells[--foodCount];
+        foodCells[index] = last;
+        foodIndex[last] = index;
+        foodIndex[cell] = -1;
+    }
+
+    /**
+     * Closes the connection; the player is removed from the board on the next tick
+     */
+    private void disconnect(Player player) {
+        if (player.closed) {
+            return;
+        }
+        player.closed = true;
+        player.key.cancel();
+        try {
+            player.channel.close();
+        } catch (IOException e) {
+            // Ignore close errors
+        }
+    }
+
+    /**
+     * Removes closed players, announcing their snakes' deaths in the current frame
+     */
+    private void removeClosedPlayers() {
+        for (int i = connected.size() - 1; i >= 0; i--) {
+            Player player = connected.get(i);
+            if (!player.closed) {
+                continue;
+            }
+            if (player.snake != null) {
+                kill(player);
+            }
+            connected.remove(i);
+            players[player.id] = null;
+            freeIds[freeIdCount++] = player.id;
+            inputPool.release(player.in);
+            outputPool.release(player.out);
+        }
+    }
+
+    // ---- Frame encoding ----
+
+    private void beginFrame() {
+        frame.clear();
+        frame.position(NetProtocol.HEADER_SIZE);
+        eventCount = 0;
+    }
+
+    /**
+     * Fills in the header and returns the frame length
+     */
+    private int endFrame() {
+        int length = frame.position();
+        frame.putInt(0, length - 4);
+        frame.putInt(4, tick);
+        frame.putInt(8, eventCount);
+        return length;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (frame.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(frame.capacity() * 2, frame.position() + bytes));
+            frame.flip();
+            larger.put(frame);
+            frame = larger;
+        }
+    }
+
+    private void putHead(int id, int x, int y) {
+        ensureCapacity(NetProtocol.HEAD_SIZE);
+        frame.put(NetProtocol.HEAD).putShort((short) id).putShort((short) x).putShort((short) y);
+        eventCount++;
+    }
+
+    private void putCellEvent(byte type, int cell) {
+        ensureCapacity(NetProtocol.FOOD_SIZE);
+        frame.put(type).putShort((short) (cell % cols)).putShort((short) (cell / cols));
+        eventCount++;
+    }
+
+    private void putJoin(Player player) {
+        List<Point> body = player.snake.getBodyParts();
+        ensureCapacity(NetProtocol.joinSize(body.size()));
+        frame.put(NetProtocol.JOIN).putShort((short) player.id)
+            .put((byte) player.snake.getDirection()).putInt(body.size());
+        for (int i = 0; i < body.size(); i++) {
+            Point part = body.get(i);
+            frame.putShort((short) part.x).putShort((short) part.y);
+        }
+        eventCount++;
+    }
+
+    // ---- Output ----
+
+    /**
+     * Copies the finished frame to every client and writes as much as the sockets take
+     */
+    private void broadcast(int length) {
+        for (int i = connected.size() - 1; i >= 0; i--) {
+            Player player = connected.get(i);
+            if (enqueue(player, length)) {
+                flush(player);
+            } else {
+                // The client fell too far behind to catch up from deltas
+                disconnect(player);
+            }
+        }
+    }
+
+    private boolean enqueue(Player player, int length) {
+        if (player.closed) {
+            return true;
+        }
+        if (player.out.remaining() < length) {
+            return false;
+        }
+        frame.limit(length).position(0);
+        player.out.put(frame);
+        frame.limit(frame.capacity());
+        return true;
+    }
+
+    private void flush(Player player) {
+        if (player.closed) {
+            return;
+        }
+        try {
+            player.out.flip();
+            player.channel.write(player.out);
+            player.out.compact();
+        } catch (IOException e) {
+            disconnect(player);
+            return;
+        }
+        int interest = player.out.position() > 0
+            ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+            : SelectionKey.OP_READ;
+        if (player.key.interestOps() != interest) {
+            player.key.interestOps(interest);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : NetProtocol.DEFAULT_PORT;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int tickMillis = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        GameServer server = new GameServer(port, cols, rows, tickMillis);
+        System.out.println("Serving " + cols + "x" + rows + " on port " + port + ", tick " + tickMillis + " ms");
+        server.run();
+    }
+}
@@ -0,0 +1,410 @@
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary snapshot of a game: board size, direction, score, food, the food
+ * generator's state, the snake's body and the level being played.
+ *
+ * The body is stored as its head cell followed by the step from each segment to the
+ * next, either bit-packed at two bits per step or run-length encoded as varints of
+ * (run length << 2 | step), whichever is smaller. A snake is one connected path
+ * apart from where it passes through a portal, so this takes at most a quarter byte
+ * per segment and far less for long straights. The few segments that land away from
+ * the one before them are listed after the body as jumps with their cells.
+ */
+public final class GameSnapshot {
+    private static final int MAGIC = 0x534E4B53; // "SNKS"
+    private static final short VERSION = 2;
+    // Version 1 had no level and no jumps
+    private static final short VERSION_NO_LEVEL = 1;
+
+    private static final short ENCODING_PACKED = 0;
+    private static final short ENCODING_RUNS = 1;
+
+    // magic, version, encoding, cols, rows, direction, score, length, food, rng, body count, head
+    private static final int HEADER_SIZE = 4 + 2 + 2 + 4 + 4 + 1 + 4 + 4 + 8 + 8 + 4 + 8;
+    // level index, jump count
+    private static final int TRAILER_SIZE = 4 + 4;
+    // segment index, col, row
+    private static final int JUMP_SIZE = 4 + 4 + 4;
+    private static final int NO_LEVEL = -1;
+
+    // Largest board read back, 4096x4096; anything bigger is taken as corruption
+    private static final int MAX_CELLS = 1 << 24;
+    private static final String DIRECTIONS = "UDLR";
+
+    // Steps between consecutive segments, indexed by their 2-bit code
+    private static final int[] STEP_X = {0, 0, -1, 1};
+    private static final int[] STEP_Y = {-1, 1, 0, 0};
+
+    private final int cols;
+    private final int rows;
+    private final char direction;
+    private final int score;
+    private final int length;
+    private final int foodCol;
+    private final int foodRow;
+    private final long rngState;
+    private final int bodyCount;
+    private final int headCol;
+    private final int headRow;
+    private final byte[] steps;
+    // Segments reached by a jump, as (segment index, col, row) triples in body order
+    private final int[] jumps;
+    private final int levelIndex;
+
+    private GameSnapshot(int cols, int rows, char direction, int score, int length, int foodCol, int foodRow,
+                         long rngState, int bodyCount, int headCol, int headRow, byte[] steps,
+                         int[] jumps, int levelIndex) {
+        this.cols = cols;
+        this.rows = rows;
+        this.direction = direction;
+        this.score = score;
+        this.length = length;
+        this.foodCol = foodCol;
+        this.foodRow = foodRow;
+        this.rngState = rngState;
+        this.bodyCount = bodyCount;
+        this.headCol = headCol;
+        this.headRow = headRow;
+        this.steps = steps;
+        this.jumps = jumps;
+        this.levelIndex = levelIndex;
+    }
+
+    /**
+     * Captures the current game on the given level, or on an open board if level is null
+     */
+    public static GameSnapshot capture(Snake snake, Food food, int score, int unitSize, int cols, int rows,
+                                       LevelPack.Level level) {
+        List<Point> body = snake.getBodyParts();
+        Point head = body.get(0);
+        byte[] steps = new byte[body.size() - 1];
+        int[] jumps = new int[0];
+        int jumpCount = 0;
+        for (int i = 1; i < body.size(); i++) {
+            Point from = body.get(i - 1);
+            Point to = body.get(i);
+            int code = stepCode((to.x - from.x) / unitSize, (to.y - from.y) / unitSize);
+            if (code < 0) {
+                // Through a portal: keep a placeholder step and record where the segment is
+                if (jumpCount * 3 == jumps.length) {
+                    jumps = Arrays.copyOf(jumps, Math.max(6, jumps.length * 2));
+                }
+                jumps[jumpCount * 3] = i;
+                jumps[jumpCount * 3 + 1] = Math.floorDiv(to.x, unitSize);
+                jumps[jumpCount * 3 + 2] = Math.floorDiv(to.y, unitSize);
+                jumpCount++;
+                code = 0;
+            }
+            steps[i - 1] = (byte) code;
+        }
+
+        return new GameSnapshot(cols, rows, snake.getDirection(), score, snake.getLength(),
+            food.getX() / unitSize, food.getY() / unitSize, food.getRngState(),
+            body.size(), Math.floorDiv(head.x, unitSize), Math.floorDiv(head.y, unitSize), steps,
+            Arrays.copyOf(jumps, jumpCount * 3), level != null ? level.getIndex() : NO_LEVEL);
+    }
+
+    /**
+     * Gets the 2-bit code of a step between neighbouring cells, or -1 if the cells are not neighbours
+     */
+    private static int stepCode(int dx, int dy) {
+        for (int code = 0; code < 4; code++) {
+            if (STEP_X[code] == dx && STEP_Y[code] == dy) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rebuilds the snake at the given unit size
+     */
+    public Snake toSnake(int unitSize) {
+        List<Point> body = new ArrayList<>(Math.max(bodyCount, length));
+        int x = headCol;
+        int y = headRow;
+        body.add(new Point(x * unitSize, y * unitSize));
+        int nextJump = 0;
+        for (int i = 0; i < steps.length; i++) {
+            if (nextJump < jumps.length && jumps[nextJump] == i + 1) {
+                x = jumps[nextJump + 1];
+                y = jumps[nextJump + 2];
+                nextJump += 3;
+            } else {
+                x += STEP_X[steps[i]];
+                y += STEP_Y[steps[i]];
+            }
+            body.add(new Point(x * unitSize, y * unitSize));
+        }
+
+        Snake snake = new Snake(unitSize, body, direction);
+        for (int i = bodyCount; i < length; i++) {
+            snake.grow();
+        }
+        return snake;
+    }
+
+    /**
+     * Moves the food and restores its generator
+     */
+    public void restoreFood(Food food, int unitSize) {
+        food.setPosition(foodCol * unitSize, foodRow * unitSize);
+        food.setRngState(rngState);
+    }
+
+    // ---- Encoding ----
+
+    /**
+     * Writes the snapshot to a file through a single buffer
+     */
+    public void write(Path path) throws IOException {
+        int runsSize = runLengthSize();
+        boolean runs = runsSize < packedSize();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (runs ? runsSize : packedSize())
+            + TRAILER_SIZE + jumps.length * 4);
+
+        buffer.putInt(MAGIC).putShort(VERSION).putShort(runs ? ENCODING_RUNS : ENCODING_PACKED)
+            .putInt(cols).putInt(rows).put((byte) direction).putInt(score).putInt(length)
+            .putInt(foodCol).putInt(foodRow).putLong(rngState)
+            .putInt(bodyCount).putInt(headCol).putInt(headRow);
+        if (runs) {
+            putRuns(buffer);
+        } else {
+            putPacked(buffer);
+        }
+        buffer.putInt(levelIndex).putInt(jumps.length / 3);
+        for (int value : jumps) {
+            buffer.putInt(value);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private int packedSize() {
+        return (steps.length + 3) / 4;
+    }
+
+    private void putPacked(ByteBuffer buffer) {
+        int packed = 0;
+        for (int i = 0; i < steps.length; i++) {
+            packed |= steps[i] << ((i & 3) * 2);
+            if ((i & 3) == 3) {
+                buffer.put((byte) packed);
+                packed = 0;
+            }
+        }
+        if ((steps.length & 3) != 0) {
+            buffer.put((byte) packed);
+        }
+    }
+
+    private int runLengthSize() {
+        int size = 0;
+        for (int i = 0; i < steps.length; ) {
+            int run = runAt(i);
+            size += varintSize(((long) run << 2) | steps[i]);
+            i += run;
+        }
+        return size;
+    }
+
+    private void putRuns(ByteBuffer buffer) {
+        for (int i = 0; i < steps.length; ) {
+            int run = runAt(i);
+            long value = ((long) run << 2) | steps[i];
+            while (value >= 0x80) {
+                buffer.put((byte) (value | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+            i += run;
+        }
+    }
+
+    private int runAt(int start) {
+        int end = start + 1;
+        while (end < steps.length && steps[end] == steps[start]) {
+            end++;
+        }
+        return end - start;
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while (value >= 0x80) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    // ---- Decoding ----
+
+    /**
+     * Reads a snapshot written by write
+     */
+    public static GameSnapshot read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the whole file is in
+            }
+        }
+        buffer.flip();
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file: " + path);
+        }
+        short version = buffer.getShort();
+        if (version != VERSION && version != VERSION_NO_LEVEL) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        short encoding = buffer.getShort();
+        int cols = buffer.getInt();
+        int rows = buffer.getInt();
+        char direction = (char) buffer.get();
+        int score = buffer.getInt();
+        int length = buffer.getInt();
+        int foodCol = buffer.getInt();
+        int foodRow = buffer.getInt();
+        long rngState = buffer.getLong();
+        int bodyCount = buffer.getInt();
+        int headCol = buffer.getInt();
+        int headRow = buffer.getInt();
+        if (bodyCount < 1) {
+            throw new IOException("Snapshot has no snake");
+        }
+
+        // Sizes come from the file, so check them before they size any allocation
+        if (cols <= 0 || rows <= 0 || (long) cols * rows > MAX_CELLS) {
+            throw new IOException("Corrupt snapshot: board is " + cols + "x" + rows);
+        }
+        int cells = cols * rows;
+        if (bodyCount > cells || length < 1 || length > cells) {
+            throw new IOException("Corrupt snapshot: snake of " + bodyCount + " segments on " + cells + " cells");
+        }
+        if (encoding == ENCODING_PACKED ? buffer.remaining() < (bodyCount - 1 + 3) / 4
+                : encoding != ENCODING_RUNS || (bodyCount > 1 && !buffer.hasRemaining())) {
+            throw new IOException("Corrupt snapshot body");
+        }
+        if (!onBoard(headCol, headRow, cols, rows) || !onBoard(foodCol, foodRow, cols, rows)
+                || DIRECTIONS.indexOf(direction) < 0) {
+            throw new IOException("Corrupt snapshot header");
+        }
+
+        byte[] steps = new byte[bodyCount - 1];
+        int[] jumps = new int[0];
+        int levelIndex = NO_LEVEL;
+        try {
+            if (encoding == ENCODING_RUNS) {
+                getRuns(buffer, steps);
+            } else {
+                getPacked(buffer, steps);
+            }
+            if (version != VERSION_NO_LEVEL) {
+                levelIndex = buffer.getInt();
+                jumps = getJumps(buffer, bodyCount, cols, rows);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot body", e);
+        }
+
+        return new GameSnapshot(cols, rows, direction, score, length, foodCol, foodRow,
+            rngState, bodyCount, headCol, headRow, steps, jumps, levelIndex);
+    }
+
+    private static int[] getJumps(ByteBuffer buffer, int bodyCount, int cols, int rows) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / JUMP_SIZE) {
+            throw new IllegalStateException("Bad jump count " + count);
+        }
+        int[] jumps = new int[count * 3];
+        int previous = 0;
+        for (int i = 0; i < jumps.length; i += 3) {
+            jumps[i] = buffer.getInt();
+            jumps[i + 1] = buffer.getInt();
+            jumps[i + 2] = buffer.getInt();
+            // Jumps must follow the body in order
+            if (jumps[i] <= previous || jumps[i] >= bodyCount || !onBoard(jumps[i + 1], jumps[i + 2], cols, rows)) {
+                throw new IllegalStateException("Jump outside the body");
+            }
+            previous = jumps[i];
+        }
+        return jumps;
+    }
+
+    private static void getPacked(ByteBuffer buffer, byte[] steps) {
+        int packed = 0;
+        for (int i = 0; i < steps.length; i++) {
+            if ((i & 3) == 0) {
+                packed = buffer.get();
+            }
+            steps[i] = (byte) ((packed >>> ((i & 3) * 2)) & 3);
+        }
+    }
+
+    private static void getRuns(ByteBuffer buffer, byte[] steps) {
+        for (int i = 0; i < steps.length; ) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            byte step = (byte) (value & 3);
+            int end = i + (int) (value >>> 2);
+            if (end > steps.length || end <= i) {
+                throw new IllegalStateException("Run overflows the body");
+            }
+            while (i < end) {
+                steps[i++] = step;
+            }
+        }
+    }
+
+    private static boolean onBoard(int col, int row, int cols, int rows) {
+        return col >= 0 && col < cols && row >= 0 && row < rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the index of the level the game was saved on, or -1 for an open board
+     */
+    public int getLevelIndex() {
+        return levelIndex;
+    }
+}
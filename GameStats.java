@@ -0,0 +1,51 @@
+/**
+ * Running totals for one game, fed from the GameEventBus
+ */
+public class GameStats implements GameEventBus.Handler {
+    private int foodEaten;
+    private int powerUps;
+    private int turns;
+    private int maxLength;
+    private long lastTick;
+
+    @Override
+    public void onEvent(GameEventType type, long tick, int x, int y, int value) {
+        lastTick = tick;
+        switch (type) {
+            case FOOD_EATEN:
+                foodEaten++;
+                break;
+            case POWER_UP:
+                powerUps++;
+                break;
+            case TURNED:
+                turns++;
+                break;
+            case GREW:
+                maxLength = Math.max(maxLength, value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Clears the totals for a new game
+     */
+    public void reset() {
+        foodEaten = 0;
+        powerUps = 0;
+        turns = 0;
+        maxLength = 0;
+        lastTick = 0;
+    }
+
+    /**
+     * Returns a one-line summary, noting events the stats consumer missed
+     */
+    public String summary(long dropped) {
+        return String.format("game: %d ticks, %d food, %d power-ups, %d turns, max length %d%s",
+            lastTick, foodEaten, powerUps, turns, maxLength,
+            dropped > 0 ? ", " + dropped + " events dropped" : "");
+    }
+}
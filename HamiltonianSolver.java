@@ -0,0 +1,231 @@
+import java.awt.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Solver that follows a precomputed Hamiltonian cycle over the board, which
+ * guarantees the snake can fill every cell, and cuts across the cycle toward
+ * the food only when the cut cannot overtake the tail.
+ *
+ * The cycle is stored as a successor table (cell -> next cell) that is built
+ * once per board size and shared between solvers. Boards where both sides are
+ * odd have no Hamiltonian cycle; there the solver hands over to the Autopilot.
+ */
+public class HamiltonianSolver implements Pilot {
+    private static final Map<Long, int[]> CYCLES = new ConcurrentHashMap<>();
+
+    // Extra cells kept free ahead of the tail when cutting across the cycle
+    private static final int SHORTCUT_MARGIN = 3;
+
+    private final int cols;
+    private final int rows;
+    private final int unitSize;
+    private final int cellCount;
+    private final int[] successor;
+    private final int[] order;
+    private final Autopilot fallback;
+
+    private Snake lastSnake;
+    private boolean aligned;
+
+    public HamiltonianSolver(int cols, int rows, int unitSize, long budgetNanos) {
+        this.cols = cols;
+        this.rows = rows;
+        this.unitSize = unitSize;
+        this.cellCount = cols * rows;
+        this.successor = cycleFor(cols, rows);
+        this.fallback = new Autopilot(cols, rows, unitSize, budgetNanos);
+
+        // Position of every cell along the cycle, starting from the top-left corner
+        this.order = successor == null ? null : new int[cellCount];
+        if (successor != null) {
+            int cell = 0;
+            for (int i = 0; i < cellCount; i++) {
+                order[cell] = i;
+                cell = successor[cell];
+            }
+        }
+    }
+
+    /**
+     * Returns the cached successor table for a board size, or null if the board has no cycle
+     */
+    public static int[] cycleFor(int cols, int rows) {
+        if (cols < 2 || rows < 2 || (cols % 2 == 1 && rows % 2 == 1)) {
+            return null;
+        }
+        return CYCLES.computeIfAbsent(((long) cols << 32) | rows, key -> buildCycle(cols, rows));
+    }
+
+    /**
+     * Builds the cycle: along the top row, back and forth over the remaining rows
+     * leaving the first column free, then up the first column. A board with an odd
+     * number of rows is walked column-wise instead, in reverse so that the initial
+     * snake along the top row still lies on the cycle head-first.
+     */
+    private static int[] buildCycle(int cols, int rows) {
+        boolean transposed = rows % 2 == 1;
+        int width = transposed ? rows : cols;
+        int height = transposed ? cols : rows;
+
+        int[] path = new int[cols * rows];
+        int n = 0;
+        for (int x = 0; x < width; x++) {
+            path[n++] = cellAt(x, 0, cols, transposed);
+        }
+        for (int y = 1; y < height; y++) {
+            if (y % 2 == 1) {
+                for (int x = width - 1; x >= 1; x--) {
+                    path[n++] = cellAt(x, y, cols, transposed);
+                }
+            } else {
+                for (int x = 1; x < width; x++) {
+                    path[n++] = cellAt(x, y, cols, transposed);
+                }
+            }
+        }
+        for (int y = height - 1; y >= 1; y--) {
+            path[n++] = cellAt(0, y, cols, transposed);
+        }
+
+        int[] next = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (transposed) {
+                next[path[(i + 1) % n]] = path[i];
+            } else {
+                next[path[i]] = path[(i + 1) % n];
+            }
+        }
+        return next;
+    }
+
+    private static int cellAt(int x, int y, int cols, boolean transposed) {
+        return transposed ? x * cols + y : y * cols + x;
+    }
+
+    @Override
+    public void steer(Snake snake, Food food) {
+        if (successor == null || !isAligned(snake)) {
+            fallback.steer(snake, food);
+            return;
+        }
+
+        List<Point> body = snake.getBodyParts();
+        Point head = body.get(0);
+        Point tail = body.get(body.size() - 1);
+        int headCell = cellOf(head.x, head.y);
+        if (headCell < 0) {
+            return;
+        }
+
+        int next = chooseNext(headCell, cellOf(tail.x, tail.y), cellOf(food.getX(), food.getY()),
+            snake.getLength());
+        snake.setDirection(directionTo(headCell, next));
+    }
+
+    /**
+     * Picks the next cell: the cycle successor, or a neighbour further along the cycle
+     * when skipping ahead still leaves room for the whole snake before the tail.
+     * Every cell strictly between head and tail along the cycle is free, so no
+     * occupancy lookup is needed.
+     */
+    private int chooseNext(int headCell, int tailCell, int foodCell, int length) {
+        int distanceToTail = distance(headCell, tailCell);
+        int distanceToFood = distance(headCell, foodCell);
+        int emptyCells = cellCount - length;
+
+        int cutting = distanceToTail - length - SHORTCUT_MARGIN;
+        if (emptyCells < cellCount / 2) {
+            // Past half the board the cycle itself is the fastest safe route
+            cutting = 0;
+        } else if (distanceToFood < distanceToTail) {
+            cutting -= 1;
+            if ((distanceToTail - cutting) * 4 > emptyCells) {
+                cutting -= 10;
+            }
+        }
+        cutting = Math.min(cutting, distanceToFood);
+
+        int best = successor[headCell];
+        int bestDistance = 1;
+        int x = headCell % cols;
+        int y = headCell / cols;
+        for (int d = 0; d < 4; d++) {
+            int nx = x + (d == 2 ? -1 : d == 3 ? 1 : 0);
+            int ny = y + (d == 0 ? -1 : d == 1 ? 1 : 0);
+            if (nx < 0 || nx >= cols || ny < 0 || ny >= rows) {
+                continue;
+            }
+            int neighbour = ny * cols + nx;
+            int skip = distance(headCell, neighbour);
+            if (skip > bestDistance && skip <= cutting) {
+                best = neighbour;
+                bestDistance = skip;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Forgets the cached alignment, for when the snake was steered by something else in between
+     */
+    public void reset() {
+        lastSnake = null;
+        aligned = false;
+    }
+
+    /**
+     * Checks that the body runs forward along the cycle from tail to head, which is
+     * what makes shortcuts safe. A fresh snake is aligned; one taken over mid-game
+     * usually is not and is left to the fallback until it happens to line up.
+     */
+    private boolean isAligned(Snake snake) {
+        if (snake == lastSnake && aligned) {
+            return true;
+        }
+        lastSnake = snake;
+
+        List<Point> body = snake.getBodyParts();
+        long span = 0;
+        for (int i = body.size() - 1; i > 0 && span < cellCount; i--) {
+            Point from = body.get(i);
+            Point to = body.get(i - 1);
+            int fromCell = cellOf(from.x, from.y);
+            int toCell = cellOf(to.x, to.y);
+            if (fromCell < 0 || toCell < 0) {
+                return aligned = false;
+            }
+            span += distance(fromCell, toCell);
+        }
+        return aligned = span < cellCount;
+    }
+
+    /**
+     * Number of steps from a to b following the cycle
+     */
+    private int distance(int a, int b) {
+        int d = order[b] - order[a];
+        return d < 0 ? d + cellCount : d;
+    }
+
+    private char directionTo(int from, int to) {
+        int dx = to % cols - from % cols;
+        int dy = to / cols - from / cols;
+        if (dx == 1) {
+            return 'R';
+        } else if (dx == -1) {
+            return 'L';
+        }
+        return dy == 1 ? 'D' : 'U';
+    }
+
+    private int cellOf(int x, int y) {
+        int col = x / unitSize;
+        int row = y / unitSize;
+        if (x < 0 || y < 0 || col >= cols || row >= rows) {
+            return -1;
+        }
+        return row * cols + col;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Runs games without a window for soak tests and bot baselines.
+ * Usage: java HeadlessRunner [cols] [rows] [games] [maxTicks] [autopilot|hamiltonian]
+ */
+public class HeadlessRunner {
+    private static final long BUDGET_NANOS = 2_000_000;
+
+    private final int cols;
+    private final int rows;
+    private final long maxTicks;
+    private final boolean hamiltonian;
+
+    private long ticks;
+    private int score;
+    private boolean won;
+    private boolean dead;
+
+    public HeadlessRunner(int cols, int rows, long maxTicks, boolean hamiltonian) {
+        this.cols = cols;
+        this.rows = rows;
+        this.maxTicks = maxTicks;
+        this.hamiltonian = hamiltonian;
+    }
+
+    /**
+     * Plays one game on a board with one pixel per cell and returns when the snake dies,
+     * fills the board or runs out of ticks
+     */
+    public void play() {
+        Snake snake = new Snake(1);
+        Food food = new Food(1, cols, rows);
+        Pilot pilot = hamiltonian
+            ? new HamiltonianSolver(cols, rows, 1, BUDGET_NANOS)
+            : new Autopilot(cols, rows, 1, BUDGET_NANOS);
+
+        ticks = 0;
+        score = 0;
+        won = false;
+        dead = false;
+
+        while (ticks < maxTicks) {
+            pilot.steer(snake, food);
+            snake.update();
+            ticks++;
+
+            if (snake.checkWallCollision(cols, rows) || snake.checkSelfCollision()) {
+                dead = true;
+                return;
+            }
+            if (snake.checkFoodCollision(food.getX(), food.getY())) {
+                score++;
+                snake.grow();
+                if (snake.getLength() >= cols * rows) {
+                    won = true;
+                    return;
+                }
+                food.generateNewFood(snake.getBodyParts());
+            }
+        }
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    public boolean isDead() {
+        return dead;
+    }
+
+    private String outcome() {
+        return won ? "won" : dead ? "died" : "out of ticks";
+    }
+
+    public static void main(String[] args) {
+        int cols = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long maxTicks = args.length > 3 ? Long.parseLong(args[3]) : 1_000_000;
+        boolean hamiltonian = args.length > 4 && "hamiltonian".equals(args[4]);
+
+        HeadlessRunner runner = new HeadlessRunner(cols, rows, maxTicks, hamiltonian);
+        for (int i = 0; i < games; i++) {
+            long start = System.nanoTime();
+            runner.play();
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("game %d: score=%d ticks=%d %s %.1f ms (%.2f us/tick)%n",
+                i + 1, runner.getScore(), runner.getTicks(), runner.outcome(),
+                elapsed / 1e6, elapsed / 1e3 / Math.max(1, runner.getTicks()));
+        }
+    }
+}
@@ -0,0 +1,345 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent high scores kept in an append-only log of fixed-size, checksummed
+ * records. On open the log is streamed once to rebuild an in-memory top-K heap; a
+ * torn or corrupt tail left by a crash is cut off. Appends and compaction run on a
+ * background thread so the game loop never waits for the disk.
+ */
+public class HighScoreStore {
+    private static final int MAGIC = 0x534E4B48; // "SNKH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    // score, length, duration, seed, timestamp, then a CRC32 of those 32 bytes
+    private static final int PAYLOAD_SIZE = 4 + 4 + 8 + 8 + 8;
+    private static final int RECORD_SIZE = PAYLOAD_SIZE + 4;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int WRITE_BATCH_RECORDS = 1024;
+
+    // Orders by score, then earlier games first, so the heap's head is the one to evict
+    private static final Comparator<HighScore> RANKING = Comparator
+        .comparingInt(HighScore::getScore)
+        .thenComparing(Comparator.comparingLong(HighScore::getTimestamp).reversed());
+
+    /**
+     * One finished game
+     */
+    public static final class HighScore {
+        private final int score;
+        private final int length;
+        private final long durationMillis;
+        private final long seed;
+        private final long timestamp;
+
+        public HighScore(int score, int length, long durationMillis, long seed, long timestamp) {
+            this.score = score;
+            this.length = length;
+            this.durationMillis = durationMillis;
+            this.seed = seed;
+            this.timestamp = timestamp;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    private final Path path;
+    private final int capacity;
+    private final int compactThreshold;
+    private final PriorityQueue<HighScore> top;
+    private final ExecutorService writer;
+    private final Queue<HighScore> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    // Owned by the writer thread after open
+    private FileChannel channel;
+    private long recordCount;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_SIZE * WRITE_BATCH_RECORDS);
+    private final CRC32 writeCrc = new CRC32();
+
+    private HighScoreStore(Path path, int capacity, int compactThreshold) {
+        this.path = path;
+        this.capacity = capacity;
+        this.compactThreshold = compactThreshold;
+        this.top = new PriorityQueue<>(capacity + 1, RANKING);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "high-score-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens or creates the log, keeping the best capacity scores in memory and
+     * compacting once the log holds more than compactThreshold records
+     */
+    public static HighScoreStore open(Path path, int capacity, int compactThreshold) throws IOException {
+        HighScoreStore store = new HighScoreStore(path, capacity, Math.max(capacity, compactThreshold));
+        store.load();
+        return store;
+    }
+
+    /**
+     * Streams the log into the top-K heap and truncates anything after the last valid record
+     */
+    private void load() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            writeHeader(channel);
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        CRC32 crc = new CRC32();
+        channel.position(0);
+        readFully(channel, buffer, HEADER_SIZE);
+        buffer.flip();
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a high score log: " + path);
+        }
+        buffer.compact();
+
+        long validEnd = HEADER_SIZE;
+        boolean corrupt = false;
+        while (!corrupt && channel.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_SIZE) {
+                int start = buffer.position();
+                buffer.limit(start + PAYLOAD_SIZE);
+                crc.reset();
+                crc.update(buffer);
+                buffer.limit(buffer.capacity());
+                buffer.position(start);
+
+                int score = buffer.getInt();
+                int length = buffer.getInt();
+                long duration = buffer.getLong();
+                long seed = buffer.getLong();
+                long timestamp = buffer.getLong();
+                if (buffer.getInt() != (int) crc.getValue()) {
+                    corrupt = true;
+                    break;
+                }
+                // Only records that make the top K become objects
+                if (qualifies(score, timestamp)) {
+                    offer(new HighScore(score, length, duration, seed, timestamp));
+                }
+                recordCount++;
+                validEnd += RECORD_SIZE;
+            }
+            buffer.compact();
+        }
+
+        // Drop a half-written or corrupt tail so new records append after good data
+        if (validEnd < channel.size()) {
+            System.err.println("Truncating high score log after " + recordCount + " valid records");
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        buffer.limit(bytes);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading until the requested bytes are in
+        }
+        buffer.limit(buffer.capacity());
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        channel.position(0);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(false);
+    }
+
+    private synchronized boolean qualifies(int score, long timestamp) {
+        if (top.size() < capacity) {
+            return true;
+        }
+        HighScore lowest = top.peek();
+        return score > lowest.getScore() || (score == lowest.getScore() && timestamp < lowest.getTimestamp());
+    }
+
+    private synchronized void offer(HighScore record) {
+        if (top.size() < capacity) {
+            top.add(record);
+        } else if (RANKING.compare(record, top.peek()) > 0) {
+            top.poll();
+            top.add(record);
+        }
+    }
+
+    /**
+     * Records a finished game. Returns immediately; the record is written in the background.
+     * Does nothing once the store is closed.
+     */
+    public void submit(HighScore record) {
+        if (closed) {
+            return;
+        }
+        offer(record);
+        pending.add(record);
+        try {
+            writer.execute(this::flushPending);
+        } catch (RejectedExecutionException e) {
+            // Closed while this record was being added; it is dropped with the store
+        }
+    }
+
+    /**
+     * Appends every pending record and forces them to disk together, then compacts
+     * the log if it has grown too long. Records that arrive in a burst share one sync.
+     */
+    private void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            HighScore record;
+            writeBuffer.clear();
+            while ((record = pending.poll()) != null) {
+                if (writeBuffer.remaining() < RECORD_SIZE) {
+                    writeBatch();
+                }
+                encode(record, writeBuffer, writeCrc);
+                recordCount++;
+            }
+            writeBatch();
+            channel.force(false);
+
+            if (recordCount > compactThreshold) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not save high score: " + e.getMessage());
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    /**
+     * Appends one checksummed record to the buffer
+     */
+    private static void encode(HighScore record, ByteBuffer buffer, CRC32 crc) {
+        int start = buffer.position();
+        buffer.putInt(record.getScore()).putInt(record.getLength()).putLong(record.getDurationMillis())
+            .putLong(record.getSeed()).putLong(record.getTimestamp());
+
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start).limit(start + PAYLOAD_SIZE);
+        crc.reset();
+        crc.update(payload);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Rewrites the log with only the records in the top-K heap and swaps it in atomically
+     */
+    private void compact() throws IOException {
+        List<HighScore> kept = getTopScores();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out);
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * kept.size());
+            for (HighScore record : kept) {
+                encode(record, buffer, writeCrc);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        recordCount = kept.size();
+    }
+
+    /**
+     * Returns the kept scores, best first
+     */
+    public synchronized List<HighScore> getTopScores() {
+        List<HighScore> scores = new ArrayList<>(top);
+        scores.sort(RANKING.reversed());
+        return scores;
+    }
+
+    /**
+     * Returns the best score so far, or 0 if none is recorded
+     */
+    public synchronized int getBestScore() {
+        int best = 0;
+        for (HighScore record : top) {
+            best = Math.max(best, record.getScore());
+        }
+        return best;
+    }
+
+    /**
+     * Finishes pending writes and closes the log
+     */
+    public void close() {
+        closed = true;
+        writer.shutdown();
+        try {
+            if (writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                channel.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Could not close high score log: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer/single-consumer queue of direction changes.
+ * The input thread offers turns as keys arrive and the simulation drains
+ * them at its own pace, so quick presses within one tick are applied on
+ * consecutive ticks instead of overwriting each other.
+ */
+public class InputQueue {
+    private final char[] directions;
+    private final long[] eventNanos;
+    private final int mask;
+
+    // Next slot to read, only advanced by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, only advanced by the producer
+    private final AtomicLong tail = new AtomicLong();
+
+    // Timestamp of the event returned by the last poll
+    private long lastEventNanos;
+
+    /**
+     * Creates a queue holding up to capacity events, rounded up to a power of two
+     */
+    public InputQueue(int capacity) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.directions = new char[size];
+        this.eventNanos = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds a turn that happened at the given System.nanoTime(); returns false and drops
+     * it if the queue is full. Producer side only.
+     */
+    public boolean offer(char direction, long nanos) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            return false;
+        }
+
+        int slot = (int) t & mask;
+        directions[slot] = direction;
+        eventNanos[slot] = nanos;
+
+        // Ordered store publishes the slot contents before the new tail
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Takes the oldest turn, or returns 0 if the queue is empty. Consumer side only.
+     */
+    public char poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return 0;
+        }
+
+        int slot = (int) h & mask;
+        char direction = directions[slot];
+        lastEventNanos = eventNanos[slot];
+
+        head.lazySet(h + 1);
+        return direction;
+    }
+
+    /**
+     * Drops all pending turns. Consumer side only.
+     */
+    public void clear() {
+        head.lazySet(tail.get());
+    }
+
+    /**
+     * Gets the System.nanoTime() at which the last polled turn happened
+     */
+    public long getLastEventNanos() {
+        return lastEventNanos;
+    }
+}
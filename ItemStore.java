@@ -0,0 +1,340 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Items on the board, indexed by grid cell. At most one item occupies a cell, so
+ * checking what the head has run into is a single array read however many items
+ * there are.
+ *
+ * Items of each type are also kept in a dense list, which lets drawing blit every
+ * item of a type with the same sprite and lets an item be removed in O(1) by
+ * swapping the last one into its place.
+ *
+ * Items that expire are threaded onto a hashed timing wheel: a ring of slots where
+ * an item expiring on tick t sits in slot t mod the wheel size. Each tick visits one
+ * slot, so expiry costs only the items in that slot instead of a scan of the board.
+ * Lifetimes longer than the wheel simply stay in their slot for more laps.
+ */
+public class ItemStore {
+    private static final int WHEEL_SLOTS = 512; // power of two
+    private static final int WHEEL_MASK = WHEEL_SLOTS - 1;
+    private static final int NONE = -1;
+    private static final int PLACEMENT_ATTEMPTS = 100;
+
+    // Ticks before expiry at which an item starts blinking
+    private static final int BLINK_TICKS = 120;
+
+    private static final ItemType[] TYPES = ItemType.values();
+
+    private final int cols;
+    private final int rows;
+    private final int unitSize;
+    private long rngState;
+    private Sprites sprites;
+    private LevelPack.Level level;
+
+    // Per cell: type ordinal + 1, or 0 when empty
+    private final byte[] typeAt;
+    // Per cell: position in the dense list of its type
+    private final int[] indexInType;
+    // Per cell: tick the item expires on, or 0 if it does not expire
+    private final long[] expiresAt;
+    // Per cell: neighbours in its wheel slot's doubly linked list
+    private final int[] wheelNext;
+    private final int[] wheelPrev;
+
+    // First cell in each wheel slot
+    private final int[] wheelHeads = new int[WHEEL_SLOTS];
+    private long wheelTick;
+
+    // Cells holding each type are cellsByType[type][0..countByType[type])
+    private final int[][] cellsByType;
+    private final int[] countByType;
+    private int size;
+
+    /**
+     * Creates an empty store for a cols by rows board whose placements are fully determined by the seed
+     */
+    public ItemStore(int cols, int rows, int unitSize, long seed) {
+        this.cols = cols;
+        this.rows = rows;
+        this.unitSize = unitSize;
+        this.rngState = seed;
+
+        int cells = cols * rows;
+        typeAt = new byte[cells];
+        indexInType = new int[cells];
+        expiresAt = new long[cells];
+        wheelNext = new int[cells];
+        wheelPrev = new int[cells];
+        Arrays.fill(wheelHeads, NONE);
+
+        cellsByType = new int[TYPES.length][cells];
+        countByType = new int[TYPES.length];
+    }
+
+    /**
+     * Places an item on a random free cell, away from the snake and the cell at
+     * (avoidX, avoidY). An item with a lifetime expires that many ticks after tick.
+     * Returns false if no free cell was found.
+     */
+    public boolean spawn(ItemType type, int lifetimeTicks, long tick, List<Point> snakeBodyParts,
+                         int avoidX, int avoidY) {
+        int avoidCell = cellAt(avoidX, avoidY);
+        for (int attempt = 0; attempt < PLACEMENT_ATTEMPTS; attempt++) {
+            int cell = nextInt(cols * rows);
+            if (typeAt[cell] == 0 && cell != avoidCell && !onLevelFeature(cell)
+                    && !onSnake(cell, snakeBodyParts)) {
+                add(cell, type, lifetimeTicks > 0 ? tick + lifetimeTicks : 0);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a cell holds a wall or portal of the current level
+     */
+    private boolean onLevelFeature(int cell) {
+        return level != null
+            && (level.isWall(cell % cols, cell / cols) || level.portalExit(cell % cols, cell / cols) >= 0);
+    }
+
+    /**
+     * Sets the level whose walls and portals new items keep off, or null for an open board
+     */
+    public void setLevel(LevelPack.Level level) {
+        this.level = level;
+    }
+
+    private boolean onSnake(int cell, List<Point> snakeBodyParts) {
+        for (int i = 0; i < snakeBodyParts.size(); i++) {
+            Point part = snakeBodyParts.get(i);
+            if (cellAt(part.x, part.y) == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(int cell, ItemType type, long expiry) {
+        int t = type.ordinal();
+        typeAt[cell] = (byte) (t + 1);
+        indexInType[cell] = countByType[t];
+        cellsByType[t][countByType[t]++] = cell;
+        size++;
+
+        expiresAt[cell] = expiry;
+        if (expiry != 0) {
+            int slot = (int) (expiry & WHEEL_MASK);
+            wheelPrev[cell] = NONE;
+            wheelNext[cell] = wheelHeads[slot];
+            if (wheelHeads[slot] != NONE) {
+                wheelPrev[wheelHeads[slot]] = cell;
+            }
+            wheelHeads[slot] = cell;
+        }
+    }
+
+    /**
+     * Removes and returns the item at the given position, or null if there is none
+     */
+    public ItemType take(int x, int y) {
+        int cell = cellAt(x, y);
+        if (cell == NONE || typeAt[cell] == 0) {
+            return null;
+        }
+        ItemType type = TYPES[typeAt[cell] - 1];
+        remove(cell);
+        return type;
+    }
+
+    private void remove(int cell) {
+        int t = typeAt[cell] - 1;
+
+        // Swap the last item of this type into the freed place
+        int last = cellsByType[t][--countByType[t]];
+        cellsByType[t][indexInType[cell]] = last;
+        indexInType[last] = indexInType[cell];
+        typeAt[cell] = 0;
+        size--;
+
+        if (expiresAt[cell] != 0) {
+            int next = wheelNext[cell];
+            int prev = wheelPrev[cell];
+            if (prev != NONE) {
+                wheelNext[prev] = next;
+            } else {
+                wheelHeads[(int) (expiresAt[cell] & WHEEL_MASK)] = next;
+            }
+            if (next != NONE) {
+                wheelPrev[next] = prev;
+            }
+            expiresAt[cell] = 0;
+        }
+    }
+
+    /**
+     * Expires every item due on or before tick, turning the wheel one slot per tick
+     */
+    public void advance(long tick) {
+        // After a long gap every slot is due at most once
+        if (tick - wheelTick > WHEEL_SLOTS) {
+            wheelTick = tick - WHEEL_SLOTS;
+        }
+        while (wheelTick < tick) {
+            wheelTick++;
+            int cell = wheelHeads[(int) (wheelTick & WHEEL_MASK)];
+            while (cell != NONE) {
+                int next = wheelNext[cell];
+                // Items for a later lap of the wheel stay put
+                if (expiresAt[cell] <= wheelTick) {
+                    remove(cell);
+                }
+                cell = next;
+            }
+        }
+    }
+
+    /**
+     * Removes every item
+     */
+    public void clear() {
+        Arrays.fill(typeAt, (byte) 0);
+        Arrays.fill(expiresAt, 0);
+        Arrays.fill(wheelHeads, NONE);
+        Arrays.fill(countByType, 0);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of items of a type on the board
+     */
+    public int count(ItemType type) {
+        return countByType[type.ordinal()];
+    }
+
+    /**
+     * Gets the number of items on the board
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Draws every item, one type at a time so each type is a run of blits of one sprite.
+     * Items about to expire blink.
+     */
+    public void draw(Graphics2D g2d, long tick, RenderQuality quality) {
+        if (sprites == null) {
+            sprites = Sprites.forUnitSize(unitSize);
+        }
+        boolean blinkOff = (tick / 8) % 2 == 0;
+
+        for (int t = 0; t < TYPES.length; t++) {
+            int[] cells = cellsByType[t];
+            int count = countByType[t];
+
+            // Cheapest level: plain squares in the type's color
+            if (!quality.drawsGradients()) {
+                g2d.setColor(TYPES[t].getColor());
+                for (int i = 0; i < count; i++) {
+                    int cell = cells[i];
+                    g2d.fillRect((cell % cols) * unitSize + 2, (cell / cols) * unitSize + 2,
+                        unitSize - 4, unitSize - 4);
+                }
+                continue;
+            }
+
+            BufferedImage sprite = sprites.items[t];
+            for (int i = 0; i < count; i++) {
+                int cell = cells[i];
+                if (blinkOff && expiresAt[cell] != 0 && expiresAt[cell] - tick < BLINK_TICKS) {
+                    continue;
+                }
+                g2d.drawImage(sprite, (cell % cols) * unitSize, (cell / cols) * unitSize, null);
+            }
+        }
+    }
+
+    /**
+     * Gets the cell at a pixel position, or NONE if it is off the board
+     */
+    private int cellAt(int x, int y) {
+        int col = Math.floorDiv(x, unitSize);
+        int row = Math.floorDiv(y, unitSize);
+        if (col < 0 || col >= cols || row < 0 || row >= rows) {
+            return NONE;
+        }
+        return row * cols + col;
+    }
+
+    /**
+     * Returns a pseudo-random int in [0, bound) from a SplitMix64 generator, as Food does
+     */
+    private int nextInt(int bound) {
+        rngState += 0x9E3779B97F4A7C15L;
+        long z = rngState;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) ((z >>> 33) % bound);
+    }
+
+    /**
+     * One pre-rendered image per item type for one unit size
+     */
+    private static final class Sprites {
+        private static final Map<Integer, Sprites> BY_UNIT_SIZE = new ConcurrentHashMap<>();
+
+        // By type ordinal
+        final BufferedImage[] items = new BufferedImage[TYPES.length];
+
+        static Sprites forUnitSize(int unitSize) {
+            return BY_UNIT_SIZE.computeIfAbsent(unitSize, Sprites::new);
+        }
+
+        private Sprites(int unitSize) {
+            for (ItemType type : TYPES) {
+                items[type.ordinal()] = render(type, Math.max(1, unitSize));
+            }
+        }
+
+        private static BufferedImage render(ItemType type, int size) {
+            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g2d = image.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            Color color = type.getColor();
+
+            if (type == ItemType.FOOD) {
+                // Smaller than the main food so the two are easy to tell apart
+                int inset = size / 4;
+                g2d.setPaint(new GradientPaint(0, 0, color.brighter(), size, size, color));
+                g2d.fillOval(inset, inset, size - 2 * inset, size - 2 * inset);
+            } else {
+                // Power-ups are gems with a mark for what they do
+                g2d.setPaint(new GradientPaint(0, 0, color.brighter(), size, size, color.darker()));
+                g2d.fillRoundRect(2, 2, size - 4, size - 4, size / 3, size / 3);
+                g2d.setColor(Color.WHITE);
+                int mid = size / 2;
+                int arm = size / 5;
+                if (type == ItemType.SPEED) {
+                    g2d.fillPolygon(new int[]{mid - arm, mid + arm, mid - arm},
+                        new int[]{mid - arm, mid, mid + arm}, 3);
+                } else if (type == ItemType.SHRINK) {
+                    g2d.fillRect(mid - arm, mid - 1, 2 * arm, 2);
+                } else if (type == ItemType.GHOST) {
+                    g2d.setColor(Color.DARK_GRAY);
+                    g2d.fillOval(mid - arm - 1, mid - 2, 3, 3);
+                    g2d.fillOval(mid + arm - 2, mid - 2, 3, 3);
+                }
+            }
+            g2d.dispose();
+            return image;
+        }
+    }
+}
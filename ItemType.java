@@ -0,0 +1,43 @@
+import java.awt.*;
+
+/**
+ * Kinds of item that can lie on the board besides the main food
+ */
+public enum ItemType {
+    // Extra food: a point and a segment, like the main food
+    FOOD(new Color(241, 196, 15), 0, 0),
+    // The snake moves half again as fast for a while
+    SPEED(new Color(52, 152, 219), 8000, 5000),
+    // Drops segments from the tail
+    SHRINK(new Color(155, 89, 182), 8000, 0),
+    // The snake passes through its own body for a while
+    GHOST(new Color(236, 240, 241), 8000, 5000);
+    
+    private final Color color;
+    private final int lifetimeMillis;
+    private final int effectMillis;
+    
+    ItemType(Color color, int lifetimeMillis, int effectMillis) {
+        this.color = color;
+        this.lifetimeMillis = lifetimeMillis;
+        this.effectMillis = effectMillis;
+    }
+    
+    public Color getColor() {
+        return color;
+    }
+    
+    /**
+     * Gets how long the item stays on the board, or 0 if it stays until eaten
+     */
+    public int getLifetimeMillis() {
+        return lifetimeMillis;
+    }
+    
+    /**
+     * Gets how long the item's effect lasts once eaten, or 0 if it acts at once
+     */
+    public int getEffectMillis() {
+        return effectMillis;
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.Arrays;
+
+/**
+ * Histogram of latencies in nanoseconds with power-of-two buckets.
+ * Recording is a couple of array writes, so it can sit on the tick path.
+ */
+public class LatencyHistogram {
+    private final String name;
+    private final long[] counts = new long[64];
+    private long total;
+    private long max;
+    private long sum;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one latency sample
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[63 - Long.numberOfLeadingZeros(value | 1)]++;
+        total++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile (0-100)
+     */
+    public long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(max, (2L << i) - 1);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Clears all samples
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+        sum = 0;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * Formats count, mean and the usual percentiles in microseconds
+     */
+    public String summary() {
+        return String.format("%s: n=%d mean=%.1fus p50<=%.1fus p90<=%.1fus p99<=%.1fus max=%.1fus",
+            name, total, total == 0 ? 0.0 : sum / 1e3 / total,
+            percentile(50) / 1e3, percentile(90) / 1e3, percentile(99) / 1e3, max / 1e3);
+    }
+}
@@ -0,0 +1,248 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A campaign of levels in one memory-mapped file. Nothing is parsed up front and
+ * nothing is copied out: a Level is a view of its bytes in the mapping, so opening a
+ * pack of thousands of levels, or switching between them, costs the same as one.
+ *
+ * File layout, all big-endian:
+ *   header        magic "SNKL", version, cols, rows, level count
+ *   offsets       one long per level, the position of its record
+ *   level record  portal count, then that many (cell, cell) int pairs linked both
+ *                 ways, then the wall layer and the portal layer at one bit per cell
+ *                 in row-major order, lowest bit first
+ */
+public final class LevelPack {
+    private static final int MAGIC = 0x534E4B4C; // "SNKL"
+    private static final short VERSION = 1;
+
+    // magic, version, cols, rows, level count
+    private static final int HEADER_SIZE = 4 + 2 + 4 + 4 + 4;
+    private static final int PORTAL_SIZE = 4 + 4;
+
+    private final MappedByteBuffer buffer;
+    private final int cols;
+    private final int rows;
+    private final int levelCount;
+    private final int layerBytes;
+
+    private LevelPack(MappedByteBuffer buffer, int cols, int rows, int levelCount) {
+        this.buffer = buffer;
+        this.cols = cols;
+        this.rows = rows;
+        this.levelCount = levelCount;
+        this.layerBytes = layerBytes(cols, rows);
+    }
+
+    /**
+     * Maps a level pack. Only the header and the offset table are checked here;
+     * each level's record is checked when it is first looked up.
+     */
+    public static LevelPack open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a level pack: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a level pack: " + path);
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported level pack version " + version);
+        }
+        int cols = buffer.getInt(6);
+        int rows = buffer.getInt(10);
+        int levelCount = buffer.getInt(14);
+        if (cols <= 0 || rows <= 0 || (long) cols * rows > Integer.MAX_VALUE / 2 || levelCount < 0
+                || HEADER_SIZE + (long) levelCount * 8 > buffer.capacity()) {
+            throw new IOException("Corrupt level pack: " + path);
+        }
+        return new LevelPack(buffer, cols, rows, levelCount);
+    }
+
+    /**
+     * Gets a level by index, a view onto the mapped file
+     */
+    public Level getLevel(int index) throws IOException {
+        if (index < 0 || index >= levelCount) {
+            throw new IndexOutOfBoundsException("Level " + index + " of " + levelCount);
+        }
+        long offset = buffer.getLong(HEADER_SIZE + index * 8);
+        if (offset < HEADER_SIZE || offset + 4 > buffer.capacity()) {
+            throw new IOException("Corrupt level " + index);
+        }
+        int portalCount = buffer.getInt((int) offset);
+        long wallOffset = offset + 4 + (long) portalCount * PORTAL_SIZE;
+        if (portalCount < 0 || wallOffset + 2L * layerBytes > buffer.capacity()) {
+            throw new IOException("Corrupt level " + index);
+        }
+        for (int i = 0; i < portalCount * 2; i++) {
+            int cell = buffer.getInt((int) offset + 4 + i * 4);
+            if (cell < 0 || cell >= cols * rows) {
+                throw new IOException("Corrupt portal in level " + index);
+            }
+        }
+        return new Level(index, (int) offset + 4, portalCount, (int) wallOffset, (int) wallOffset + layerBytes);
+    }
+
+    /**
+     * Writes a level pack. Each level is given as its wall cells and its portal pairs.
+     */
+    public static void write(Path path, int cols, int rows, List<boolean[]> walls, List<int[]> portals)
+            throws IOException {
+        int layerBytes = layerBytes(cols, rows);
+        long size = HEADER_SIZE + walls.size() * 8L;
+        for (int i = 0; i < walls.size(); i++) {
+            size += 4 + (portals.get(i).length / 2) * PORTAL_SIZE + 2L * layerBytes;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Level pack too large: " + size + " bytes");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) size);
+        out.putInt(MAGIC).putShort(VERSION).putInt(cols).putInt(rows).putInt(walls.size());
+        long offset = HEADER_SIZE + walls.size() * 8L;
+        for (int i = 0; i < walls.size(); i++) {
+            out.putLong(offset);
+            offset += 4 + (portals.get(i).length / 2) * PORTAL_SIZE + 2L * layerBytes;
+        }
+
+        for (int i = 0; i < walls.size(); i++) {
+            int[] pairs = portals.get(i);
+            out.putInt(pairs.length / 2);
+            for (int cell : pairs) {
+                out.putInt(cell);
+            }
+
+            byte[] wallLayer = new byte[layerBytes];
+            byte[] portalLayer = new byte[layerBytes];
+            boolean[] wallCells = walls.get(i);
+            for (int cell = 0; cell < wallCells.length; cell++) {
+                if (wallCells[cell]) {
+                    wallLayer[cell >>> 3] |= 1 << (cell & 7);
+                }
+            }
+            for (int cell : pairs) {
+                portalLayer[cell >>> 3] |= 1 << (cell & 7);
+            }
+            out.put(wallLayer).put(portalLayer);
+        }
+        out.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    private static int layerBytes(int cols, int rows) {
+        return (cols * rows + 7) / 8;
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * One level of the pack. Lookups read the mapped file directly.
+     */
+    public final class Level {
+        private final int index;
+        private final int portalOffset;
+        private final int portalCount;
+        private final int wallOffset;
+        private final int portalLayerOffset;
+
+        private Level(int index, int portalOffset, int portalCount, int wallOffset, int portalLayerOffset) {
+            this.index = index;
+            this.portalOffset = portalOffset;
+            this.portalCount = portalCount;
+            this.wallOffset = wallOffset;
+            this.portalLayerOffset = portalLayerOffset;
+        }
+
+        /**
+         * Checks whether a cell is a wall; everything off the board counts as wall
+         */
+        public boolean isWall(int col, int row) {
+            if (col < 0 || col >= cols || row < 0 || row >= rows) {
+                return true;
+            }
+            return bit(wallOffset, row * cols + col);
+        }
+
+        /**
+         * Gets the cell a portal at (col, row) leads to, or -1 if there is no portal there
+         */
+        public int portalExit(int col, int row) {
+            if (col < 0 || col >= cols || row < 0 || row >= rows) {
+                return -1;
+            }
+            int cell = row * cols + col;
+            // The bit layer answers the common case without touching the table
+            if (!bit(portalLayerOffset, cell)) {
+                return -1;
+            }
+            for (int i = 0; i < portalCount; i++) {
+                int a = buffer.getInt(portalOffset + i * PORTAL_SIZE);
+                int b = buffer.getInt(portalOffset + i * PORTAL_SIZE + 4);
+                if (a == cell) {
+                    return b;
+                }
+                if (b == cell) {
+                    return a;
+                }
+            }
+            return -1;
+        }
+
+        private boolean bit(int layerOffset, int cell) {
+            return (buffer.get(layerOffset + (cell >>> 3)) & (1 << (cell & 7))) != 0;
+        }
+
+        public int getPortalCount() {
+            return portalCount;
+        }
+
+        /**
+         * Gets one end of a portal; end 0 and end 1 are linked to each other
+         */
+        public int getPortalCell(int portal, int end) {
+            return buffer.getInt(portalOffset + portal * PORTAL_SIZE + end * 4);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getCols() {
+            return cols;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a campaign of levels and writes it as a LevelPack. Level 0 is the open
+ * board; later levels cycle through wall patterns that get denser as the campaign
+ * goes on and add portals. The top two rows are always clear for the snake's start,
+ * and any free cell the start cannot reach is filled in, so food never lands out
+ * of reach.
+ *
+ * Usage: java LevelPackBuilder [output] [levels] [cols] [rows] [seed]
+ */
+public class LevelPackBuilder {
+    private static final int SPAWN_ROWS = 2;
+    private static final int MAX_PORTAL_PAIRS = 3;
+
+    private final int cols;
+    private final int rows;
+    private final Random random;
+
+    private LevelPackBuilder(int cols, int rows, long seed) {
+        this.cols = cols;
+        this.rows = rows;
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) {
+        Path output = Paths.get(args.length > 0 ? args[0] : "levels.snkl");
+        int levelCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+
+        LevelPackBuilder builder = new LevelPackBuilder(cols, rows, seed);
+        List<boolean[]> walls = new ArrayList<>(levelCount);
+        List<int[]> portals = new ArrayList<>(levelCount);
+        for (int i = 0; i < levelCount; i++) {
+            boolean[] level = builder.buildWalls(i, levelCount);
+            walls.add(level);
+            portals.add(i < 2 ? new int[0] : builder.placePortals(level, 1 + i % MAX_PORTAL_PAIRS));
+        }
+
+        try {
+            LevelPack.write(output, cols, rows, walls, portals);
+            System.out.println("Wrote " + levelCount + " levels to " + output);
+        } catch (IOException e) {
+            System.err.println("Could not write level pack: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Lays out the walls of one level
+     */
+    private boolean[] buildWalls(int index, int levelCount) {
+        boolean[] walls = new boolean[cols * rows];
+        if (index == 0) {
+            return walls;
+        }
+
+        // 0 at the start of the campaign, approaching 1 at the end
+        float difficulty = index / (float) levelCount;
+        switch (index % 4) {
+            case 1:
+                // A box with a gap in each side
+                int inset = 4 + random.nextInt(3);
+                for (int col = inset; col < cols - inset; col++) {
+                    set(walls, col, inset + SPAWN_ROWS);
+                    set(walls, col, rows - inset);
+                }
+                for (int row = inset + SPAWN_ROWS; row <= rows - inset; row++) {
+                    set(walls, inset, row);
+                    set(walls, cols - inset - 1, row);
+                }
+                clear(walls, cols / 2, inset + SPAWN_ROWS);
+                clear(walls, cols / 2, rows - inset);
+                clear(walls, inset, rows / 2);
+                clear(walls, cols - inset - 1, rows / 2);
+                break;
+            case 2:
+                // Vertical bars hanging alternately from the top and bottom
+                int spacing = Math.max(3, 8 - (int) (difficulty * 5));
+                for (int col = spacing; col < cols - 1; col += spacing) {
+                    boolean fromTop = (col / spacing) % 2 == 0;
+                    int length = rows * 2 / 3;
+                    for (int i = 0; i < length; i++) {
+                        set(walls, col, fromTop ? SPAWN_ROWS + i : rows - 1 - i);
+                    }
+                }
+                break;
+            case 3:
+                // A cross with its middle open
+                for (int col = 3; col < cols - 3; col++) {
+                    if (Math.abs(col - cols / 2) > 2) {
+                        set(walls, col, rows / 2);
+                    }
+                }
+                for (int row = SPAWN_ROWS + 2; row < rows - 2; row++) {
+                    if (Math.abs(row - rows / 2) > 2) {
+                        set(walls, cols / 2, row);
+                    }
+                }
+                break;
+            default:
+                // Scattered blocks
+                int blocks = 8 + (int) (difficulty * 40);
+                for (int i = 0; i < blocks; i++) {
+                    int col = random.nextInt(cols - 1);
+                    int row = SPAWN_ROWS + random.nextInt(rows - SPAWN_ROWS - 1);
+                    set(walls, col, row);
+                    set(walls, col + 1, row);
+                    set(walls, col, row + 1);
+                    set(walls, col + 1, row + 1);
+                }
+                break;
+        }
+
+        fillUnreachable(walls);
+        return walls;
+    }
+
+    /**
+     * Picks pairs of free cells below the spawn rows as linked portals
+     */
+    private int[] placePortals(boolean[] walls, int pairs) {
+        int[] cells = new int[pairs * 2];
+        int placed = 0;
+        for (int attempt = 0; attempt < 1000 && placed < cells.length; attempt++) {
+            int cell = (SPAWN_ROWS + random.nextInt(rows - SPAWN_ROWS)) * cols + random.nextInt(cols);
+            boolean taken = walls[cell];
+            for (int i = 0; i < placed && !taken; i++) {
+                taken = cells[i] == cell;
+            }
+            if (!taken) {
+                cells[placed++] = cell;
+            }
+        }
+        return placed == cells.length ? cells : new int[0];
+    }
+
+    /**
+     * Turns every free cell that cannot be reached from the top-left corner into wall
+     */
+    private void fillUnreachable(boolean[] walls) {
+        boolean[] reached = new boolean[walls.length];
+        int[] stack = new int[walls.length];
+        int size = 0;
+        stack[size++] = 0;
+        reached[0] = true;
+        while (size > 0) {
+            int cell = stack[--size];
+            int col = cell % cols;
+            int row = cell / cols;
+            if (col > 0) size = visit(walls, reached, stack, size, cell - 1);
+            if (col < cols - 1) size = visit(walls, reached, stack, size, cell + 1);
+            if (row > 0) size = visit(walls, reached, stack, size, cell - cols);
+            if (row < rows - 1) size = visit(walls, reached, stack, size, cell + cols);
+        }
+        for (int cell = 0; cell < walls.length; cell++) {
+            if (!reached[cell]) {
+                walls[cell] = true;
+            }
+        }
+    }
+
+    private static int visit(boolean[] walls, boolean[] reached, int[] stack, int size, int cell) {
+        if (!walls[cell] && !reached[cell]) {
+            reached[cell] = true;
+            stack[size++] = cell;
+        }
+        return size;
+    }
+
+    private void set(boolean[] walls, int col, int row) {
+        if (col >= 0 && col < cols && row >= SPAWN_ROWS && row < rows) {
+            walls[row * cols + col] = true;
+        }
+    }
+
+    private void clear(boolean[] walls, int col, int row) {
+        if (col >= 0 && col < cols && row >= 0 && row < rows) {
+            walls[row * cols + col] = false;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format shared by the multiplayer server, the thin client and the bot load generator.
+ *
+ * Clients send single direction bytes ('U', 'D', 'L', 'R'). The server sends frames:
+ * an int payload length, an int tick, an int event count, then the events. Each event
+ * is a type byte followed by big-endian fields; coordinates are grid cells.
+ */
+public final class NetProtocol {
+    public static final int DEFAULT_PORT = 7777;
+
+    // Frame header: payload length, tick, event count
+    public static final int HEADER_SIZE = 12;
+
+    /** WELCOME: short playerId, short cols, short rows. Sent once to a new client. */
+    public static final byte WELCOME = 1;
+    /** JOIN: short playerId, byte direction, int count, count x (short x, short y), head first. */
+    public static final byte JOIN = 2;
+    /** HEAD: short playerId, short x, short y. The snake moved its head to this cell. */
+    public static final byte HEAD = 3;
+    /** TAIL: short playerId. The snake dropped its last segment. */
+    public static final byte TAIL = 4;
+    /** FOOD: short x, short y. Food appeared on this cell. */
+    public static final byte FOOD = 5;
+    /** EAT: short x, short y. Food on this cell was eaten. */
+    public static final byte EAT = 6;
+    /** DIE: short playerId. The snake is gone. */
+    public static final byte DIE = 7;
+
+    public static final int HEAD_SIZE = 7;
+    public static final int TAIL_SIZE = 3;
+    public static final int FOOD_SIZE = 5;
+    public static final int DIE_SIZE = 3;
+    public static final int WELCOME_SIZE = 7;
+
+    private NetProtocol() {
+    }
+
+    /**
+     * Size of a JOIN event for a snake of the given length
+     */
+    public static int joinSize(int length) {
+        return 8 + length * 4;
+    }
+
+    /**
+     * Returns the full size of the frame at the buffer's position, or -1 if its
+     * header has not fully arrived yet
+     */
+    public static int frameSize(ByteBuffer buffer) {
+        if (buffer.remaining() < 4) {
+            return -1;
+        }
+        return 4 + buffer.getInt(buffer.position());
+    }
+}
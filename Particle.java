@@ -1,24 +1,105 @@
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Individual particle class for visual effects
+ * Individual particle class for visual effects. Particles are reused: a dead one
+ * is given new values with reset instead of being replaced.
  */
 public class Particle {
     private float x, y;
     private float velocityX, velocityY;
     private float life;
     private float maxLife;
-    private Color color;
+    private Style style;
     private float size;
     
+    /**
+     * A particle color pre-rendered as discs at each size and fade level, so drawing a
+     * particle is a blit rather than an antialiased oval fill, which allocates. The discs
+     * are rendered by prerender, off the event dispatch thread; until then particles of
+     * the style are filled directly.
+     */
+    public static final class Style {
+        private static final int FADE_LEVELS = 16;
+        private static final int MAX_DIAMETER = 16;
+        private static final Map<Color, Style> BY_COLOR = new ConcurrentHashMap<>();
+        
+        private final Color color;
+        // By fade level, then diameter; null until rendered
+        private volatile BufferedImage[][] discs;
+        
+        /**
+         * Gets the shared style for a color
+         */
+        public static Style of(Color color) {
+            return BY_COLOR.computeIfAbsent(color, Style::new);
+        }
+        
+        private Style(Color color) {
+            this.color = color;
+        }
+        
+        /**
+         * Renders the discs if they have not been yet; safe to call from any thread
+         */
+        public void prerender() {
+            if (discs != null) {
+                return;
+            }
+            BufferedImage[][] rendered = new BufferedImage[FADE_LEVELS][MAX_DIAMETER + 1];
+            for (int level = 0; level < FADE_LEVELS; level++) {
+                Color faded = new Color(color.getRed(), color.getGreen(), color.getBlue(), level * 255 / (FADE_LEVELS - 1));
+                for (int diameter = 1; diameter <= MAX_DIAMETER; diameter++) {
+                    BufferedImage disc = new BufferedImage(diameter, diameter, BufferedImage.TYPE_INT_ARGB_PRE);
+                    Graphics2D g2d = disc.createGraphics();
+                    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    g2d.setColor(faded);
+                    g2d.fillOval(0, 0, diameter, diameter);
+                    g2d.dispose();
+                    rendered[level][diameter] = disc;
+                }
+            }
+            discs = rendered;
+        }
+    }
+    
     public Particle(float x, float y, float velocityX, float velocityY, float life, Color color, float size) {
+        reset(x, y, velocityX, velocityY, life, Style.of(color), size);
+    }
+    
+    /**
+     * Creates a copy of another particle
+     */
+    public Particle(Particle other) {
+        this.x = other.x;
+        this.y = other.y;
+        this.velocityX = other.velocityX;
+        this.velocityY = other.velocityY;
+        this.life = other.life;
+        this.maxLife = other.maxLife;
+        this.style = other.style;
+        this.size = other.size;
+    }
+    
+    /**
+     * Creates a dead particle to be brought to life with reset
+     */
+    Particle() {
+    }
+    
+    /**
+     * Gives the particle new values
+     */
+    public void reset(float x, float y, float velocityX, float velocityY, float life, Style style, float size) {
         this.x = x;
         this.y = y;
         this.velocityX = velocityX;
         this.velocityY = velocityY;
         this.life = life;
         this.maxLife = life;
-        this.color = color;
+        this.style = style;
         this.size = size;
     }
     
@@ -38,6 +119,7 @@ public class Particle {
         velocityY *= 0.98f;
     }
     
+    
     /**
      * Draws the particle with fade effect
      */
@@ -45,12 +127,20 @@ public class Particle {
         float alpha = life / maxLife;
         if (alpha > 0) {
             int alphaValue = (int) (alpha * 255);
-            Color particleColor = new Color(color.getRed(), color.getGreen(), color.getBlue(), alphaValue);
-            g2d.setColor(particleColor);
             
             float currentSize = size * alpha;
-            g2d.fillOval((int) (x - currentSize / 2), (int) (y - currentSize / 2), 
-                        (int) currentSize, (int) currentSize);
+            int diameter = (int) currentSize;
+            int left = (int) (x - currentSize / 2);
+            int top = (int) (y - currentSize / 2);
+            BufferedImage[][] discs = style.discs;
+            if (discs != null && diameter <= Style.MAX_DIAMETER) {
+                if (diameter > 0) {
+                    g2d.drawImage(discs[alphaValue * Style.FADE_LEVELS / 256][diameter], left, top, null);
+                }
+            } else {
+                g2d.setColor(new Color(style.color.getRed(), style.color.getGreen(), style.color.getBlue(), alphaValue));
+                g2d.fillOval(left, top, diameter, diameter);
+            }
         }
     }
     
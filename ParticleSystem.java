@@ -1,34 +1,88 @@
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Random;
 
 /**
- * Particle system for managing visual effects
+ * Particle system for managing visual effects. All particles are allocated up
+ * front and recycled, so effects create no garbage while the game runs.
  */
 public class ParticleSystem {
-    private List<Particle> particles;
-    private Random random;
+    public static final int MAX_PARTICLES = 256;
+    
+    // Food burst colors
+    private static final Particle.Style[] FOOD_STYLES = {
+        Particle.Style.of(new Color(231, 76, 60)),
+        Particle.Style.of(new Color(255, 107, 91)),
+        Particle.Style.of(new Color(255, 195, 0)),
+        Particle.Style.of(new Color(255, 255, 255))
+    };
+    
+    // Live particles are pool[0..count)
+    private final Particle[] pool;
+    private int count;
+    private final Random random;
+    private int maxParticles = MAX_PARTICLES;
     
     public ParticleSystem() {
-        particles = new ArrayList<>();
-        random = new Random();
+        this(new Random(), newPool());
+    }
+    
+    /**
+     * Creates a particle system whose effects are reproducible from the seed
+     */
+    public ParticleSystem(long seed) {
+        this(new Random(seed), newPool());
+    }
+    
+    private ParticleSystem(Random random, Particle[] pool) {
+        this.random = random;
+        this.pool = pool;
+    }
+    
+    /**
+     * Renders the discs of every built-in particle style; safe to call off the event dispatch thread
+     */
+    public static void prerender() {
+        for (Particle.Style style : FOOD_STYLES) {
+            style.prerender();
+        }
+    }
+    
+    private static Particle[] newPool() {
+        Particle[] pool = new Particle[MAX_PARTICLES];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new Particle();
+        }
+        return pool;
+    }
+    
+    /**
+     * Returns a copy of the live particles that can be drawn on another thread
+     */
+    public ParticleSystem copy() {
+        Particle[] live = new Particle[count];
+        for (int i = 0; i < count; i++) {
+            live[i] = new Particle(pool[i]);
+        }
+        ParticleSystem copy = new ParticleSystem(random, live);
+        copy.count = count;
+        copy.maxParticles = maxParticles;
+        return copy;
+    }
+    
+    /**
+     * Sets how many particles may be alive at once; new particles past the cap are not created
+     */
+    public void setMaxParticles(int maxParticles) {
+        this.maxParticles = maxParticles;
     }
     
     /**
      * Creates particles when food is eaten
      */
     public void createFoodParticles(int x, int y, int unitSize) {
-        Color[] colors = {
-            new Color(231, 76, 60),
-            new Color(255, 107, 91),
-            new Color(255, 195, 0),
-            new Color(255, 255, 255)
-        };
-        
         // Create 8-12 particles
-        int particleCount = 8 + random.nextInt(5);
+        int limit = Math.min(maxParticles, pool.length);
+        int particleCount = Math.min(8 + random.nextInt(5), limit - count);
         
         for (int i = 0; i < particleCount; i++) {
             float angle = (float) (random.nextDouble() * 2 * Math.PI);
@@ -37,14 +91,14 @@ public class ParticleSystem {
             float velocityY = (float) (Math.sin(angle) * speed);
             
             float life = 0.5f + random.nextFloat() * 0.5f;
-            Color color = colors[random.nextInt(colors.length)];
+            Particle.Style style = FOOD_STYLES[random.nextInt(FOOD_STYLES.length)];
             float size = 3 + random.nextFloat() * 4;
             
-            particles.add(new Particle(
+            pool[count++].reset(
                 x + unitSize / 2 + random.nextFloat() * unitSize / 2,
                 y + unitSize / 2 + random.nextFloat() * unitSize / 2,
-                velocityX, velocityY, life, color, size
-            ));
+                velocityX, velocityY, life, style, size
+            );
         }
     }
     
@@ -52,13 +106,18 @@ public class ParticleSystem {
      * Updates all particles
      */
     public void update(float deltaTime) {
-        Iterator<Particle> iterator = particles.iterator();
-        while (iterator.hasNext()) {
-            Particle particle = iterator.next();
+        int i = 0;
+        while (i < count) {
+            Particle particle = pool[i];
             particle.update(deltaTime);
             
-            if (!particle.isAlive()) {
-                iterator.remove();
+            if (particle.isAlive()) {
+                i++;
+            } else {
+                // Swap the dead particle past the live ones
+                count--;
+                pool[i] = pool[count];
+                pool[count] = particle;
             }
         }
     }
@@ -67,8 +126,8 @@ public class ParticleSystem {
      * Draws all particles
      */
     public void draw(Graphics2D g2d) {
-        for (Particle particle : particles) {
-            particle.draw(g2d);
+        for (int i = 0; i < count; i++) {
+            pool[i].draw(g2d);
         }
     }
     
@@ -76,6 +135,6 @@ public class ParticleSystem {
      * Clears all particles
      */
     public void clear() {
-        particles.clear();
+        count = 0;
     }
 }
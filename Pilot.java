@@ -0,0 +1,9 @@
+/**
+ * Something that drives a snake by calling setDirection once per tick
+ */
+public interface Pilot {
+    /**
+     * Picks the next move for the snake and applies it with setDirection
+     */
+    void steer(Snake snake, Food food);
+}
@@ -0,0 +1,77 @@
+/**
+ * Holds the frame budget by stepping render quality down when smoothed frame
+ * times run over it and back up once they have stayed well under it.
+ *
+ * The two thresholds and the differing hold times give hysteresis: quality drops
+ * after a short run of slow frames but only recovers after a long run of fast ones,
+ * and every change waits out a cooldown, so it does not flicker between levels.
+ */
+public class QualityGovernor {
+    private static final int DOWN_AFTER_FRAMES = 30;
+    private static final int UP_AFTER_FRAMES = 180;
+    private static final int COOLDOWN_FRAMES = 60;
+    
+    private final long budgetNanos;
+    private final long recoverNanos;
+    
+    private RenderQuality quality = RenderQuality.FULL;
+    private long smoothedNanos;
+    private int slowFrames;
+    private int fastFrames;
+    private int cooldown;
+    
+    /**
+     * Creates a governor that keeps frames under budgetNanos and raises quality
+     * again once they fall under half of it
+     */
+    public QualityGovernor(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+        this.recoverNanos = budgetNanos / 2;
+    }
+    
+    /**
+     * Records how long one frame's work took and adjusts the quality level
+     */
+    public void record(long frameNanos) {
+        // Exponential moving average over roughly the last eight frames
+        smoothedNanos += (frameNanos - smoothedNanos) / 8;
+        
+        if (cooldown > 0) {
+            cooldown--;
+            return;
+        }
+        
+        if (smoothedNanos > budgetNanos) {
+            fastFrames = 0;
+            if (++slowFrames >= DOWN_AFTER_FRAMES && quality != RenderQuality.FLAT) {
+                change(quality.lower());
+            }
+        } else if (smoothedNanos < recoverNanos) {
+            slowFrames = 0;
+            if (++fastFrames >= UP_AFTER_FRAMES && quality != RenderQuality.FULL) {
+                change(quality.higher());
+            }
+        } else {
+            slowFrames = 0;
+            fastFrames = 0;
+        }
+    }
+    
+    private void change(RenderQuality newQuality) {
+        quality = newQuality;
+        slowFrames = 0;
+        fastFrames = 0;
+        cooldown = COOLDOWN_FRAMES;
+    }
+    
+    public RenderQuality getQuality() {
+        return quality;
+    }
+    
+    /**
+     * Gets the smoothed frame time in nanoseconds
+     */
+    public long getSmoothedNanos() {
+        return smoothedNanos;
+    }
+}
@@ -0,0 +1,216 @@
+import java.awt.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thin client for a GameServer. A background thread reads the server's delta
+ * frames and applies them to mirrored snakes; the panel only renders the mirror
+ * and forwards turns.
+ */
+public class RemoteGame {
+    private final SocketChannel channel;
+    private final int panelWidth;
+    private final int panelHeight;
+    private final ByteBuffer outgoing = ByteBuffer.allocate(1);
+
+    // Mirrored state, guarded by this
+    private final Map<Integer, Snake> snakes = new HashMap<>();
+    private final List<Point> foods = new ArrayList<>();
+    private Food foodRenderer;
+    private int unitSize = 1;
+    private int playerId = -1;
+    private int tick;
+
+    private volatile boolean connected = true;
+
+    private RemoteGame(SocketChannel channel, int panelWidth, int panelHeight) {
+        this.channel = channel;
+        this.panelWidth = panelWidth;
+        this.panelHeight = panelHeight;
+    }
+
+    /**
+     * Connects to a server and starts mirroring its game
+     */
+    public static RemoteGame connect(String host, int port, int panelWidth, int panelHeight) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+
+        RemoteGame game = new RemoteGame(channel, panelWidth, panelHeight);
+        Thread reader = new Thread(game::readLoop, "remote-game-reader");
+        reader.setDaemon(true);
+        reader.start();
+        return game;
+    }
+
+    /**
+     * Sends a turn to the server
+     */
+    public void sendDirection(char direction) {
+        if (!connected) {
+            return;
+        }
+        synchronized (outgoing) {
+            outgoing.clear();
+            outgoing.put((byte) direction).flip();
+            try {
+                channel.write(outgoing);
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Reads frames until the connection drops
+     */
+    private void readLoop() {
+        ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+        try {
+            while (connected && channel.read(buffer) >= 0) {
+                buffer.flip();
+                int size;
+                while ((size = NetProtocol.frameSize(buffer)) >= 0 && buffer.remaining() >= size) {
+                    int end = buffer.position() + size;
+                    synchronized (this) {
+                        applyFrame(buffer);
+                    }
+                    buffer.position(end);
+                }
+                buffer.compact();
+
+                // Make room for a frame larger than the buffer
+                if (size > buffer.capacity()) {
+                    ByteBuffer larger = ByteBuffer.allocate(size * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Lost connection to server: " + e.getMessage());
+        }
+        close();
+    }
+
+    /**
+     * Applies one frame of events to the mirror
+     */
+    private void applyFrame(ByteBuffer frame) {
+        frame.getInt();
+        tick = frame.getInt();
+        int events = frame.getInt();
+
+        for (int i = 0; i < events; i++) {
+            byte type = frame.get();
+            switch (type) {
+                case NetProtocol.WELCOME: {
+                    playerId = frame.getShort();
+                    int cols = frame.getShort();
+                    int rows = frame.getShort();
+                    unitSize = Math.max(1, Math.min(panelWidth / cols, panelHeight / rows));
+                    foodRenderer = new Food(unitSize, panelWidth, panelHeight);
+                    break;
+                }
+                case NetProtocol.JOIN: {
+                    int id = frame.getShort();
+                    char direction = (char) frame.get();
+                    int count = frame.getInt();
+                    List<Point> body = new ArrayList<>(count);
+                    for (int j = 0; j < count; j++) {
+                        body.add(new Point(frame.getShort() * unitSize, frame.getShort() * unitSize));
+                    }
+                    snakes.put(id, new Snake(unitSize, body, direction));
+                    break;
+                }
+                case NetProtocol.HEAD: {
+                    Snake snake = snakes.get((int) frame.getShort());
+                    int x = frame.getShort() * unitSize;
+                    int y = frame.getShort() * unitSize;
+                    if (snake != null) {
+                        snake.pushHead(x, y);
+                    }
+                    break;
+                }
+                case NetProtocol.TAIL: {
+                    Snake snake = snakes.get((int) frame.getShort());
+                    if (snake != null) {
+                        snake.popTail();
+                    }
+                    break;
+                }
+                case NetProtocol.FOOD:
+                    foods.add(new Point(frame.getShort() * unitSize, frame.getShort() * unitSize));
+                    break;
+                case NetProtocol.EAT:
+                    foods.remove(new Point(frame.getShort() * unitSize, frame.getShort() * unitSize));
+                    break;
+                case NetProtocol.DIE:
+                    snakes.remove((int) frame.getShort());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event type " + type);
+            }
+        }
+    }
+
+    /**
+     * Draws the mirrored board
+     */
+    public void draw(Graphics2D g2d, float gameTime) {
+        draw(g2d, gameTime, RenderQuality.FULL);
+    }
+    
+    /**
+     * Draws the mirrored board at the given quality level
+     */
+    public synchronized void draw(Graphics2D g2d, float gameTime, RenderQuality quality) {
+        if (foodRenderer != null) {
+            for (Point food : foods) {
+                foodRenderer.setPosition(food.x, food.y);
+                foodRenderer.draw(g2d, gameTime, quality);
+            }
+        }
+        for (Snake snake : snakes.values()) {
+            snake.draw(g2d, gameTime, quality);
+        }
+    }
+
+    /**
+     * Gets the length of this client's snake, or 0 while it is waiting to respawn
+     */
+    public synchronized int getLength() {
+        Snake snake = snakes.get(playerId);
+        return snake == null ? 0 : snake.getBodyParts().size();
+    }
+
+    public synchronized int getPlayerCount() {
+        return snakes.size();
+    }
+
+    public synchronized int getTick() {
+        return tick;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Closes the connection to the server
+     */
+    public void close() {
+        connected = false;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore close errors
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Rendering quality levels, best first. Each level keeps the savings of the
+ * levels above it and gives up one more effect.
+ */
+public enum RenderQuality {
+    FULL,
+    NO_ANTIALIASING,
+    NO_HIGHLIGHTS,
+    NO_SPARKLES,
+    FEWER_PARTICLES,
+    FLAT;
+    
+    public boolean isAntialiased() {
+        return this == FULL;
+    }
+    
+    public boolean drawsHighlights() {
+        return compareTo(NO_HIGHLIGHTS) < 0;
+    }
+    
+    public boolean drawsSparkles() {
+        return compareTo(NO_SPARKLES) < 0;
+    }
+    
+    /**
+     * Gets how many particles may be alive at once, given the full-quality cap
+     */
+    public int particleCap(int fullCap) {
+        return compareTo(FEWER_PARTICLES) < 0 ? fullCap : fullCap / 2;
+    }
+    
+    /**
+     * Whether segments and food are drawn with gradients rather than flat fills
+     */
+    public boolean drawsGradients() {
+        return this != FLAT;
+    }
+    
+    /**
+     * Gets the next cheaper level, or this one if it is already the cheapest
+     */
+    public RenderQuality lower() {
+        return this == FLAT ? FLAT : values()[ordinal() + 1];
+    }
+    
+    /**
+     * Gets the next better level, or this one if it is already the best
+     */
+    public RenderQuality higher() {
+        return this == FULL ? FULL : values()[ordinal() - 1];
+    }
+}
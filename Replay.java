@@ -0,0 +1,174 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Recording of one game as its food seed plus the direction the snake moved on
+ * each tick. Food placement is fully determined by the seed, so replaying the
+ * turns through the same rules reproduces the game exactly. Only ticks where the
+ * direction changes are stored.
+ */
+public final class Replay {
+    private static final int MAGIC = 0x534E4B52; // "SNKR"
+    private static final short VERSION = 1;
+
+    // magic, version, cols, rows, tick millis, seed, tick count, turn count
+    private static final int HEADER_SIZE = 4 + 2 + 4 + 4 + 4 + 8 + 4 + 4;
+    private static final int TURN_SIZE = 4 + 1;
+
+    // Direction of a new Snake
+    private static final char INITIAL_DIRECTION = 'R';
+
+    private final int cols;
+    private final int rows;
+    private final int tickMillis;
+    private final long seed;
+
+    private int tickCount;
+    private int turnCount;
+    private int[] turnTicks;
+    private byte[] turnDirections;
+
+    /**
+     * Starts an empty recording of a game on a cols by rows board
+     */
+    public Replay(int cols, int rows, int tickMillis, long seed) {
+        this(cols, rows, tickMillis, seed, 0, 0, new int[64], new byte[64]);
+    }
+
+    private Replay(int cols, int rows, int tickMillis, long seed, int tickCount, int turnCount,
+                   int[] turnTicks, byte[] turnDirections) {
+        this.cols = cols;
+        this.rows = rows;
+        this.tickMillis = tickMillis;
+        this.seed = seed;
+        this.tickCount = tickCount;
+        this.turnCount = turnCount;
+        this.turnTicks = turnTicks;
+        this.turnDirections = turnDirections;
+    }
+
+    /**
+     * Records the direction the snake is about to move in on the next tick
+     */
+    public void recordTick(char direction) {
+        char previous = turnCount == 0 ? INITIAL_DIRECTION : (char) turnDirections[turnCount - 1];
+        if (direction != previous) {
+            if (turnCount == turnTicks.length) {
+                turnTicks = Arrays.copyOf(turnTicks, turnCount * 2);
+                turnDirections = Arrays.copyOf(turnDirections, turnCount * 2);
+            }
+            turnTicks[turnCount] = tickCount;
+            turnDirections[turnCount] = (byte) direction;
+            turnCount++;
+        }
+        tickCount++;
+    }
+
+    /**
+     * Forgets the last ticks, e.g. after they were rewound
+     */
+    public void truncate(int ticks) {
+        tickCount = Math.max(0, tickCount - ticks);
+        while (turnCount > 0 && turnTicks[turnCount - 1] >= tickCount) {
+            turnCount--;
+        }
+    }
+
+    /**
+     * Gets the direction the snake moved in on the given tick
+     */
+    public char directionAt(int tick) {
+        int turn = Arrays.binarySearch(turnTicks, 0, turnCount, tick);
+        if (turn < 0) {
+            turn = -turn - 2;
+        }
+        return turn < 0 ? INITIAL_DIRECTION : (char) turnDirections[turn];
+    }
+
+    /**
+     * Writes the replay to a file
+     */
+    public void write(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + turnCount * TURN_SIZE);
+        buffer.putInt(MAGIC).putShort(VERSION).putInt(cols).putInt(rows).putInt(tickMillis)
+            .putLong(seed).putInt(tickCount).putInt(turnCount);
+        for (int i = 0; i < turnCount; i++) {
+            buffer.putInt(turnTicks[i]).put(turnDirections[i]);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads a replay written by write
+     */
+    public static Replay read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a replay file: " + path);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the whole file is in
+            }
+        }
+        buffer.flip();
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a replay file: " + path);
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        int cols = buffer.getInt();
+        int rows = buffer.getInt();
+        int tickMillis = buffer.getInt();
+        long seed = buffer.getLong();
+        int tickCount = buffer.getInt();
+        int turnCount = buffer.getInt();
+        if (turnCount < 0 || buffer.remaining() < (long) turnCount * TURN_SIZE) {
+            throw new IOException("Corrupt replay: " + path);
+        }
+
+        int[] turnTicks = new int[Math.max(1, turnCount)];
+        byte[] turnDirections = new byte[Math.max(1, turnCount)];
+        for (int i = 0; i < turnCount; i++) {
+            turnTicks[i] = buffer.getInt();
+            turnDirections[i] = buffer.get();
+        }
+        return new Replay(cols, rows, tickMillis, seed, tickCount, turnCount, turnTicks, turnDirections);
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getTickMillis() {
+        return tickMillis;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTickCount() {
+        return tickCount;
+    }
+}
@@ -0,0 +1,403 @@
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Turns a recorded game into an animated GIF or a PNG sequence without a window.
+ *
+ * The game is re-simulated on the calling thread. Every exported frame gets its own
+ * copy of the snake, food and particles, and a pool of threads draws those copies
+ * with the normal draw methods. At most a few frames per thread are in flight at
+ * once; when that limit is reached the simulation waits for the oldest frame to be
+ * written, so memory stays bounded however long the game was. PNG frames are
+ * encoded on the pool; GIF frames are reduced to a palette on the pool and then
+ * appended in order.
+ *
+ * Usage: java ReplayExporter replay.bin (out.gif | out-dir) [threads] [frameStep] [unitSize]
+ */
+public class ReplayExporter {
+    static {
+        // Must be set before any AWT class looks at it
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    private static final int FRAMES_IN_FLIGHT_PER_THREAD = 4;
+
+    private static final Color BACKGROUND_COLOR = new Color(23, 32, 42);
+    private static final Color GRID_COLOR = new Color(52, 73, 94, 100);
+    private static final Color UI_COLOR = new Color(236, 240, 241);
+    private static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 16);
+
+    // Colors the game draws with most, given exact palette entries in GIF output;
+    // the second is the grid line blended over the background
+    private static final Color[] KEY_COLORS = {
+        BACKGROUND_COLOR, new Color(34, 48, 62), UI_COLOR, Color.WHITE, Color.BLACK,
+        new Color(46, 204, 113), new Color(39, 174, 96), new Color(35, 155, 86),
+        new Color(231, 76, 60), new Color(255, 107, 91), new Color(255, 195, 0)
+    };
+
+    /**
+     * Everything needed to draw one frame, owned by the task that draws it
+     */
+    private static class FrameState {
+        final int index;
+        final Snake snake;
+        final int foodX;
+        final int foodY;
+        final ParticleSystem particles;
+        final float gameTime;
+        final int score;
+
+        FrameState(int index, Snake snake, int foodX, int foodY, ParticleSystem particles, float gameTime, int score) {
+            this.index = index;
+            this.snake = snake;
+            this.foodX = foodX;
+            this.foodY = foodY;
+            this.particles = particles;
+            this.gameTime = gameTime;
+            this.score = score;
+        }
+    }
+
+    private final Replay replay;
+    private final int unitSize;
+    private final int width;
+    private final int height;
+    private final int frameStep;
+    private final boolean gif;
+    private final Path output;
+    private final BackgroundLayer background;
+    private final IndexColorModel palette;
+    private int finalScore;
+
+    // Score labels are not thread-safe, so each render thread keeps its own
+    private final ThreadLocal<CachedText> scoreText =
+        ThreadLocal.withInitial(() -> new CachedText(SCORE_FONT, UI_COLOR, "Score: "));
+
+    public ReplayExporter(Replay replay, Path output, int unitSize, int frameStep) {
+        this.replay = replay;
+        this.output = output;
+        this.unitSize = unitSize;
+        this.frameStep = frameStep;
+        this.width = replay.getCols() * unitSize;
+        this.height = replay.getRows() * unitSize;
+        this.gif = output.getFileName().toString().toLowerCase().endsWith(".gif");
+        this.background = BackgroundLayer.render(width, height, unitSize, BACKGROUND_COLOR, GRID_COLOR);
+        this.palette = gif ? createPalette() : null;
+    }
+
+    /**
+     * Re-simulates the game and writes every frameStep-th tick, returning the number of frames written
+     */
+    public int export(int threads) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "replay-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Queue<Future<BufferedImage>> inFlight = new ArrayDeque<>();
+        int maxInFlight = threads * FRAMES_IN_FLIGHT_PER_THREAD;
+        GifSequence gifSequence = null;
+        int frames = 0;
+
+        try {
+            if (gif) {
+                gifSequence = new GifSequence(output.toFile(), Math.max(1, Math.round(frameStep * replay.getTickMillis() / 10f)));
+            } else {
+                Files.createDirectories(output);
+            }
+
+            // Same rules and order as GamePanel.updateGame, at the recorded tick rate
+            float deltaTime = replay.getTickMillis() / 1000.0f;
+            Snake.prerender(unitSize);
+            Food.prerender(unitSize);
+            ParticleSystem.prerender();
+            Snake snake = new Snake(unitSize);
+            Food food = new Food(unitSize, width, height, replay.getSeed());
+            ParticleSystem particles = new ParticleSystem(replay.getSeed());
+            float gameTime = 0;
+            int score = 0;
+
+            for (int tick = 0; tick <= replay.getTickCount(); tick++) {
+                if (tick % frameStep == 0 || tick == replay.getTickCount()) {
+                    FrameState state = new FrameState(frames++, copyOf(snake), food.getX(), food.getY(),
+                        particles.copy(), gameTime, score);
+
+                    // Back-pressure: wait for the oldest frame before queueing another
+                    if (inFlight.size() >= maxInFlight) {
+                        finish(inFlight.poll(), gifSequence);
+                    }
+                    inFlight.add(pool.submit(() -> renderFrame(state)));
+                }
+                if (tick == replay.getTickCount()) {
+                    break;
+                }
+
+                gameTime += deltaTime;
+                snake.forceDirection(replay.directionAt(tick));
+                snake.update();
+                particles.update(deltaTime);
+
+                if (snake.checkFoodCollision(food.getX(), food.getY())) {
+                    score++;
+                    snake.grow();
+                    particles.createFoodParticles(food.getX(), food.getY(), unitSize);
+                    food.generateNewFood(snake.getBodyParts());
+                }
+                if (snake.checkWallCollision(width, height) || snake.checkSelfCollision()) {
+                    // The recording ends on the fatal tick; draw it and stop
+                    tick = replay.getTickCount() - 1;
+                }
+            }
+
+            while (!inFlight.isEmpty()) {
+                finish(inFlight.poll(), gifSequence);
+            }
+            finalScore = score;
+        } finally {
+            pool.shutdownNow();
+            if (gifSequence != null) {
+                gifSequence.close();
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Gets the score the re-simulated game ended with
+     */
+    public int getFinalScore() {
+        return finalScore;
+    }
+
+    private Snake copyOf(Snake snake) {
+        List<Point> body = new ArrayList<>(snake.getBodyParts().size());
+        for (Point part : snake.getBodyParts()) {
+            body.add(new Point(part));
+        }
+        Snake copy = new Snake(unitSize, body, snake.getDirection());
+        copy.setLength(snake.getLength());
+        return copy;
+    }
+
+    /**
+     * Waits for a frame and, for GIF output, appends it
+     */
+    private static void finish(Future<BufferedImage> frame, GifSequence gifSequence)
+            throws IOException, InterruptedException {
+        BufferedImage image;
+        try {
+            image = frame.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Could not render frame: " + e.getCause().getMessage(), e.getCause());
+        }
+        if (gifSequence != null) {
+            gifSequence.append(image);
+        }
+    }
+
+    /**
+     * Draws one frame on a pool thread; PNG frames are also written here
+     */
+    private BufferedImage renderFrame(FrameState state) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        background.draw(g2d);
+        Food food = new Food(unitSize, width, height, 0);
+        food.setPosition(state.foodX, state.foodY);
+        food.draw(g2d, state.gameTime);
+        state.snake.draw(g2d, state.gameTime);
+        state.particles.draw(g2d);
+        scoreText.get().draw(g2d, state.score, 10, 25);
+        g2d.dispose();
+
+        if (!gif) {
+            ImageIO.write(image, "png", output.resolve(String.format("frame-%06d.png", state.index)).toFile());
+            return null;
+        }
+
+        // Reduce to the palette here so the single GIF writer only has to compress
+        BufferedImage indexed = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, palette);
+        Graphics2D indexedGraphics = indexed.createGraphics();
+        indexedGraphics.drawImage(image, 0, 0, null);
+        indexedGraphics.dispose();
+        return indexed;
+    }
+
+    /**
+     * Builds a 256-color palette from the game's key colors plus a color cube
+     */
+    private static IndexColorModel createPalette() {
+        byte[] r = new byte[256];
+        byte[] g = new byte[256];
+        byte[] b = new byte[256];
+        int index = 0;
+        for (Color color : KEY_COLORS) {
+            r[index] = (byte) color.getRed();
+            g[index] = (byte) color.getGreen();
+            b[index] = (byte) color.getBlue();
+            index++;
+        }
+        // 6x7x6 cube, with the extra green level where the snake lives
+        for (int red = 0; red < 6; red++) {
+            for (int green = 0; green < 7; green++) {
+                for (int blue = 0; blue < 6 && index < 256; blue++) {
+                    r[index] = (byte) (red * 51);
+                    g[index] = (byte) (green * 255 / 6);
+                    b[index] = (byte) (blue * 51);
+                    index++;
+                }
+            }
+        }
+        return new IndexColorModel(8, 256, r, g, b);
+    }
+
+    /**
+     * Animated GIF writer that loops forever. Each frame after the first only stores
+     * the rectangle that changed since the previous one, which keeps the static
+     * board out of the file.
+     */
+    private static class GifSequence {
+        private final ImageOutputStream stream;
+        private final ImageWriter writer;
+        private final int delayCentiseconds;
+        private byte[] previous;
+
+        GifSequence(File file, int delayCentiseconds) throws IOException {
+            this.delayCentiseconds = delayCentiseconds;
+            this.writer = ImageIO.getImageWritersByFormatName("gif").next();
+            Files.deleteIfExists(file.toPath());
+            this.stream = ImageIO.createImageOutputStream(file);
+            writer.setOutput(stream);
+            writer.prepareWriteSequence(null);
+        }
+
+        /**
+         * Appends an indexed frame the same size as the previous ones
+         */
+        void append(BufferedImage image) throws IOException {
+            byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+            int width = image.getWidth();
+            int height = image.getHeight();
+            boolean first = previous == null;
+
+            // Bounding box of the pixels that differ from the previous frame
+            int minX = 0;
+            int minY = 0;
+            int maxX = width - 1;
+            int maxY = height - 1;
+            if (!first) {
+                minX = width;
+                minY = height;
+                maxX = -1;
+                maxY = -1;
+                for (int y = 0; y < height; y++) {
+                    int row = y * width;
+                    for (int x = 0; x < width; x++) {
+                        if (pixels[row + x] != previous[row + x]) {
+                            minX = Math.min(minX, x);
+                            maxX = Math.max(maxX, x);
+                            minY = Math.min(minY, y);
+                            maxY = y;
+                        }
+                    }
+                }
+                if (maxX < 0) {
+                    // Nothing changed; keep the delay with a single unchanged pixel
+                    minX = 0;
+                    minY = 0;
+                    maxX = 0;
+                    maxY = 0;
+                }
+            }
+            previous = pixels;
+
+            BufferedImage region = image.getSubimage(minX, minY, maxX - minX + 1, maxY - minY + 1);
+            writer.writeToSequence(new IIOImage(region, null, createMetadata(image, minX, minY, first)), null);
+        }
+
+        private IIOMetadata createMetadata(BufferedImage image, int left, int top, boolean first) throws IOException {
+            IIOMetadata frameMetadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(image), null);
+            String format = frameMetadata.getNativeMetadataFormatName();
+            IIOMetadataNode root = (IIOMetadataNode) frameMetadata.getAsTree(format);
+
+            IIOMetadataNode descriptor = (IIOMetadataNode) root.getElementsByTagName("ImageDescriptor").item(0);
+            descriptor.setAttribute("imageLeftPosition", Integer.toString(left));
+            descriptor.setAttribute("imageTopPosition", Integer.toString(top));
+
+            IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+            control.setAttribute("disposalMethod", "doNotDispose");
+            control.setAttribute("userInputFlag", "FALSE");
+            control.setAttribute("transparentColorFlag", "FALSE");
+            control.setAttribute("delayTime", Integer.toString(delayCentiseconds));
+            control.setAttribute("transparentColorIndex", "0");
+            root.appendChild(control);
+
+            if (first) {
+                IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+                IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+                loop.setAttribute("applicationID", "NETSCAPE");
+                loop.setAttribute("authenticationCode", "2.0");
+                loop.setUserObject(new byte[]{1, 0, 0});
+                extensions.appendChild(loop);
+                root.appendChild(extensions);
+            }
+
+            frameMetadata.setFromTree(format, root);
+            return frameMetadata;
+        }
+
+        void close() throws IOException {
+            writer.endWriteSequence();
+            stream.close();
+            writer.dispose();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java ReplayExporter replay.bin (out.gif | out-dir) [threads] [frameStep] [unitSize]");
+            System.exit(1);
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        boolean gif = output.getFileName().toString().toLowerCase().endsWith(".gif");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int frameStep = args.length > 3 ? Integer.parseInt(args[3]) : gif ? 3 : 1;
+        int unitSize = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+        Replay replay = Replay.read(input);
+        long start = System.nanoTime();
+        ReplayExporter exporter = new ReplayExporter(replay, output, unitSize, frameStep);
+        int frames = exporter.export(threads);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long gameMillis = (long) replay.getTickCount() * replay.getTickMillis();
+
+        System.out.printf("Wrote %d frames to %s in %d ms (%.1fx real time, %d threads), final score %d%n",
+            frames, output, elapsedMillis, gameMillis / (double) Math.max(1, elapsedMillis), threads,
+            exporter.getFinalScore());
+    }
+}
@@ -0,0 +1,147 @@
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Ring buffer of per-tick undo records for rewinding the last few seconds of a game.
+ * Each tick stores only what changed (the new head, the popped tail, where the food
+ * was, the score change, the previous direction and length) in primitive arrays, so
+ * memory is fixed by the capacity and independent of the snake's length, and
+ * rewinding n ticks costs O(n).
+ */
+public class RewindBuffer {
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final int capacity;
+    private final int unitSize;
+
+    private final int[] headCells;
+    private final int[] tailCells;
+    private final int[] foodCells;
+    private final long[] foodRngStates;
+    private final int[] lengths;
+    private final short[] scoreDeltas;
+    private final char[] directions;
+
+    // Index of the next record and how many records are valid
+    private int next;
+    private int size;
+
+    // State captured at the start of the tick being recorded
+    private char directionBefore;
+    private int lengthBefore;
+    private int sizeBefore;
+    private int tailBefore;
+    private int foodBefore;
+    private long rngBefore;
+    private int scoreBefore;
+
+    public RewindBuffer(int capacity, int unitSize) {
+        this.capacity = capacity;
+        this.unitSize = unitSize;
+        this.headCells = new int[capacity];
+        this.tailCells = new int[capacity];
+        this.foodCells = new int[capacity];
+        this.foodRngStates = new long[capacity];
+        this.lengths = new int[capacity];
+        this.scoreDeltas = new short[capacity];
+        this.directions = new char[capacity];
+    }
+
+    /**
+     * Captures the state before a tick runs
+     */
+    public void beginTick(Snake snake, Food food, int score) {
+        List<Point> body = snake.getBodyParts();
+        Point tail = body.get(body.size() - 1);
+        directionBefore = snake.getDirection();
+        lengthBefore = snake.getLength();
+        sizeBefore = body.size();
+        tailBefore = pack(tail.x, tail.y);
+        foodBefore = pack(food.getX(), food.getY());
+        rngBefore = food.getRngState();
+        scoreBefore = score;
+    }
+
+    /**
+     * Stores what the tick changed, overwriting the oldest record when full
+     */
+    public void endTick(Snake snake, Food food, int score) {
+        List<Point> body = snake.getBodyParts();
+        Point head = body.get(0);
+        int foodAfter = pack(food.getX(), food.getY());
+        boolean foodMoved = foodAfter != foodBefore || food.getRngState() != rngBefore;
+
+        headCells[next] = pack(head.x, head.y);
+        tailCells[next] = body.size() == sizeBefore ? tailBefore : NONE;
+        foodCells[next] = foodMoved ? foodBefore : NONE;
+        foodRngStates[next] = rngBefore;
+        lengths[next] = lengthBefore;
+        scoreDeltas[next] = (short) (score - scoreBefore);
+        directions[next] = directionBefore;
+
+        next = (next + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+    }
+
+    /**
+     * Undoes up to ticks recorded ticks on the snake and food and returns the restored score
+     */
+    public int rewind(int ticks, Snake snake, Food food, int score) {
+        int count = Math.min(ticks, size);
+        for (int i = 0; i < count; i++) {
+            next = (next - 1 + capacity) % capacity;
+
+            snake.popHead();
+            if (tailCells[next] != NONE) {
+                snake.appendTail(unpackX(tailCells[next]), unpackY(tailCells[next]));
+            }
+            snake.setLength(lengths[next]);
+            snake.forceDirection(directions[next]);
+
+            if (foodCells[next] != NONE) {
+                food.setPosition(unpackX(foodCells[next]), unpackY(foodCells[next]));
+                food.setRngState(foodRngStates[next]);
+            }
+            score -= scoreDeltas[next];
+        }
+        size -= count;
+        return score;
+    }
+
+    /**
+     * Forgets all recorded ticks
+     */
+    public void clear() {
+        next = 0;
+        size = 0;
+    }
+
+    /**
+     * Gets how many ticks can currently be rewound
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the head cell recorded for a tick, counting back from the latest (0)
+     */
+    public int getHeadCell(int ticksAgo) {
+        return headCells[(next - 1 - ticksAgo + 2 * capacity) % capacity];
+    }
+
+    // Cells are packed as signed 16-bit column and row so a head off the board still fits
+    private int pack(int x, int y) {
+        int col = Math.floorDiv(x, unitSize);
+        int row = Math.floorDiv(y, unitSize);
+        return (row << 16) | (col & 0xFFFF);
+    }
+
+    private int unpackX(int cell) {
+        return (short) (cell & 0xFFFF) * unitSize;
+    }
+
+    private int unpackY(int cell) {
+        return (cell >> 16) * unitSize;
+    }
+}
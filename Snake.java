@@ -1,6 +1,9 @@
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Snake entity class that handles snake movement, growth, and collision detection
@@ -10,17 +13,25 @@ public class Snake {
     private char direction;
     private int unitSize;
     private int bodyPartsCount;
+    private Sprites sprites;
     
     // Modern snake colors
     private static final Color HEAD_COLOR = new Color(46, 204, 113);
     private static final Color BODY_COLOR = new Color(39, 174, 96);
     private static final Color BODY_ACCENT = new Color(35, 155, 86);
+    private static final Color SEGMENT_HIGHLIGHT = new Color(255, 255, 255, 30);
+    
+    // Length of a new snake, and the shortest a snake can shrink to
+    private static final int START_LENGTH = 3;
+    
+    // Head sprites are indexed by the position of the direction in this string
+    private static final String DIRECTIONS = "UDLR";
     
     public Snake(int unitSize) {
         this.unitSize = unitSize;
         this.bodyParts = new ArrayList<>();
         this.direction = 'R'; // Start moving right
-        this.bodyPartsCount = 3;
+        this.bodyPartsCount = START_LENGTH;
         
         // Initialize snake body
         for (int i = 0; i < this.bodyPartsCount; i++) {
@@ -29,11 +40,28 @@ public class Snake {
     }
     
     /**
-     * Updates snake position based on current direction
+     * Creates a snake from an existing body, head first
+     */
+    public Snake(int unitSize, List<Point> bodyParts, char direction) {
+        this.unitSize = unitSize;
+        this.bodyParts = bodyParts;
+        this.direction = direction;
+        this.bodyPartsCount = bodyParts.size();
+    }
+    
+    /**
+     * Updates snake position based on current direction. When the snake is not growing,
+     * the tail's Point object becomes the new head, so callers must copy out any body
+     * coordinates they need before calling this rather than keep the Point.
      */
     public void update() {
-        // Add new head
-        Point newHead = new Point(bodyParts.get(0));
+        Point head = bodyParts.get(0);
+        
+        // When not growing, the tail's Point is recycled as the new head
+        Point newHead = bodyParts.size() >= this.bodyPartsCount
+            ? bodyParts.remove(bodyParts.size() - 1)
+            : new Point();
+        newHead.setLocation(head);
         
         switch (direction) {
             case 'U':
@@ -51,17 +79,24 @@ public class Snake {
         }
         
         bodyParts.add(0, newHead);
-        
-        // Remove tail if not growing
-        if (bodyParts.size() > this.bodyPartsCount) {
-            bodyParts.remove(bodyParts.size() - 1);
-        }
     }
     
     /**
      * Draws the snake with modern styling and smooth animations
      */
     public void draw(Graphics2D g2d, float gameTime) {
+        draw(g2d, gameTime, RenderQuality.FULL);
+    }
+    
+    /**
+     * Draws the snake at the given quality level
+     */
+    public void draw(Graphics2D g2d, float gameTime, RenderQuality quality) {
+        // Until the sprites are pre-rendered segments are painted directly
+        if (sprites == null) {
+            sprites = Sprites.ifReady(unitSize);
+        }
+        
         for (int i = 0; i < bodyParts.size(); i++) {
             Point part = bodyParts.get(i);
             
@@ -72,7 +107,7 @@ public class Snake {
                 drawHead(g2d, part.x, part.y, size, gameTime);
             } else {
                 // Draw body segments
-                drawBodySegment(g2d, part.x, part.y, size, i, gameTime);
+                drawBodySegment(g2d, part.x, part.y, size, i, gameTime, quality);
             }
         }
     }
@@ -86,35 +121,45 @@ public class Snake {
         int animatedSize = (int) (size * breathe);
         int offset = (size - animatedSize) / 2;
         
-        // Draw head with gradient effect
-        GradientPaint headGradient = new GradientPaint(
-            x + offset, y + offset, HEAD_COLOR.brighter(),
-            x + offset + animatedSize, y + offset + animatedSize, HEAD_COLOR
-        );
-        g2d.setPaint(headGradient);
-        g2d.fillRoundRect(x + offset + 1, y + offset + 1, animatedSize, animatedSize, 6, 6);
-        
+        // Draw head with gradient effect and eyes facing the direction of travel
+        if (animatedSize <= 0) {
+            return;
+        }
+        if (sprites != null) {
+            g2d.drawImage(sprites.heads[Math.max(0, DIRECTIONS.indexOf(direction))][animatedSize],
+                x + offset, y + offset, null);
+        } else {
+            g2d.translate(x + offset, y + offset);
+            Sprites.paintHead(g2d, direction, animatedSize);
+            g2d.translate(-(x + offset), -(y + offset));
+        }
+    }
+    
+    /**
+     * Draws the eyes and pupils for a head of the given size at the origin
+     */
+    private static void drawEyes(Graphics2D g2d, char direction, int size) {
         // Draw eyes
         g2d.setColor(Color.WHITE);
         int eyeSize = 4;
-        int eyeOffset = animatedSize / 4;
+        int eyeOffset = size / 4;
         
         switch (direction) {
             case 'U':
-                g2d.fillOval(x + offset + eyeOffset, y + offset + eyeOffset, eyeSize, eyeSize);
-                g2d.fillOval(x + offset + animatedSize - eyeOffset - eyeSize, y + offset + eyeOffset, eyeSize, eyeSize);
+                g2d.fillOval(eyeOffset, eyeOffset, eyeSize, eyeSize);
+                g2d.fillOval(size - eyeOffset - eyeSize, eyeOffset, eyeSize, eyeSize);
                 break;
             case 'D':
-                g2d.fillOval(x + offset + eyeOffset, y + offset + animatedSize - eyeOffset - eyeSize, eyeSize, eyeSize);
-                g2d.fillOval(x + offset + animatedSize - eyeOffset - eyeSize, y + offset + animatedSize - eyeOffset - eyeSize, eyeSize, eyeSize);
+                g2d.fillOval(eyeOffset, size - eyeOffset - eyeSize, eyeSize, eyeSize);
+                g2d.fillOval(size - eyeOffset - eyeSize, size - eyeOffset - eyeSize, eyeSize, eyeSize);
                 break;
             case 'L':
-                g2d.fillOval(x + offset + eyeOffset, y + offset + eyeOffset, eyeSize, eyeSize);
-                g2d.fillOval(x + offset + eyeOffset, y + offset + animatedSize - eyeOffset - eyeSize, eyeSize, eyeSize);
+                g2d.fillOval(eyeOffset, eyeOffset, eyeSize, eyeSize);
+                g2d.fillOval(eyeOffset, size - eyeOffset - eyeSize, eyeSize, eyeSize);
                 break;
             case 'R':
-                g2d.fillOval(x + offset + animatedSize - eyeOffset - eyeSize, y + offset + eyeOffset, eyeSize, eyeSize);
-                g2d.fillOval(x + offset + animatedSize - eyeOffset - eyeSize, y + offset + animatedSize - eyeOffset - eyeSize, eyeSize, eyeSize);
+                g2d.fillOval(size - eyeOffset - eyeSize, eyeOffset, eyeSize, eyeSize);
+                g2d.fillOval(size - eyeOffset - eyeSize, size - eyeOffset - eyeSize, eyeSize, eyeSize);
                 break;
         }
         
@@ -123,20 +168,20 @@ public class Snake {
         int pupilSize = 2;
         switch (direction) {
             case 'U':
-                g2d.fillOval(x + offset + eyeOffset + 1, y + offset + eyeOffset + 1, pupilSize, pupilSize);
-                g2d.fillOval(x + offset + animatedSize - eyeOffset - eyeSize + 1, y + offset + eyeOffset + 1, pupilSize, pupilSize);
+                g2d.fillOval(eyeOffset + 1, eyeOffset + 1, pupilSize, pupilSize);
+                g2d.fillOval(size - eyeOffset - eyeSize + 1, eyeOffset + 1, pupilSize, pupilSize);
                 break;
             case 'D':
-                g2d.fillOval(x + offset + eyeOffset + 1, y + offset + animatedSize - eyeOffset - eyeSize + 1, pupilSize, pupilSize);
-                g2d.fillOval(x + offset + animatedSize - eyeOffset - eyeSize + 1, y + offset + animatedSize - eyeOffset - eyeSize + 1, pupilSize, pupilSize);
+                g2d.fillOval(eyeOffset + 1, size - eyeOffset - eyeSize + 1, pupilSize, pupilSize);
+                g2d.fillOval(size - eyeOffset - eyeSize + 1, size - eyeOffset - eyeSize + 1, pupilSize, pupilSize);
                 break;
             case 'L':
-                g2d.fillOval(x + offset + eyeOffset + 1, y + offset + eyeOffset + 1, pupilSize, pupilSize);
-                g2d.fillOval(x + offset + eyeOffset + 1, y + offset + animatedSize - eyeOffset - eyeSize + 1, pupilSize, pupilSize);
+                g2d.fillOval(eyeOffset + 1, eyeOffset + 1, pupilSize, pupilSize);
+                g2d.fillOval(eyeOffset + 1, size - eyeOffset - eyeSize + 1, pupilSize, pupilSize);
                 break;
             case 'R':
-                g2d.fillOval(x + offset + animatedSize - eyeOffset - eyeSize + 1, y + offset + eyeOffset + 1, pupilSize, pupilSize);
-                g2d.fillOval(x + offset + animatedSize - eyeOffset - eyeSize + 1, y + offset + animatedSize - eyeOffset - eyeSize + 1, pupilSize, pupilSize);
+                g2d.fillOval(size - eyeOffset - eyeSize + 1, eyeOffset + 1, pupilSize, pupilSize);
+                g2d.fillOval(size - eyeOffset - eyeSize + 1, size - eyeOffset - eyeSize + 1, pupilSize, pupilSize);
                 break;
         }
     }
@@ -144,7 +189,8 @@ public class Snake {
     /**
      * Draws individual body segments with gradient and scale effects
      */
-    private void drawBodySegment(Graphics2D g2d, int x, int y, int size, int index, float gameTime) {
+    private void drawBodySegment(Graphics2D g2d, int x, int y, int size, int index, float gameTime,
+                                 RenderQuality quality) {
         // Scale segments slightly smaller toward the tail
         float scale = 1.0f - (index * 0.02f);
         int scaledSize = (int) (size * scale);
@@ -153,21 +199,127 @@ public class Snake {
         // Alternate colors for striped effect
         Color segmentColor = (index % 2 == 0) ? BODY_COLOR : BODY_ACCENT;
         
+        // Cheapest level: a plain square, no animation
+        if (!quality.drawsGradients()) {
+            g2d.setColor(segmentColor);
+            g2d.fillRect(x + offset + 1, y + offset + 1, scaledSize, scaledSize);
+            return;
+        }
+        
+        // Past the point where segments shrink to nothing there is nothing to draw
+        if (scaledSize <= 0) {
+            return;
+        }
+        
         // Add subtle wave animation
         float wave = (float) Math.sin(gameTime * 2 + index * 0.3f) * 0.5f;
         offset += (int) wave;
         
-        // Draw segment with gradient
-        GradientPaint segmentGradient = new GradientPaint(
-            x + offset, y + offset, segmentColor.brighter(),
-            x + offset + scaledSize, y + offset + scaledSize, segmentColor
-        );
-        g2d.setPaint(segmentGradient);
-        g2d.fillRoundRect(x + offset + 1, y + offset + 1, scaledSize, scaledSize, 4, 4);
+        // Draw segment with gradient and, quality permitting, a highlight
+        if (sprites != null) {
+            BufferedImage[] segmentSprites = sprites.segments[(index % 2) * 2 + (quality.drawsHighlights() ? 1 : 0)];
+            g2d.drawImage(segmentSprites[scaledSize], x + offset, y + offset, null);
+        } else {
+            g2d.translate(x + offset, y + offset);
+            Sprites.paintSegment(g2d, segmentColor, scaledSize, quality.drawsHighlights());
+            g2d.translate(-(x + offset), -(y + offset));
+        }
+    }
+    
+    /**
+     * Pre-rendered head and segment images for one unit size, shared by every snake of
+     * that size, so a frame draws the snake with one blit per segment instead of
+     * allocating a GradientPaint for each
+     */
+    private static final class Sprites {
+        private static final Map<Integer, Sprites> BY_UNIT_SIZE = new ConcurrentHashMap<>();
+        
+        // By direction, then animated head size
+        final BufferedImage[][] heads;
+        // By color and highlight (color index * 2 + highlight), then scaled size
+        final BufferedImage[][] segments;
+        
+        static Sprites forUnitSize(int unitSize) {
+            return BY_UNIT_SIZE.computeIfAbsent(unitSize, Sprites::new);
+        }
+        
+        /**
+         * Gets the sprites for a unit size if they have been rendered, without rendering them
+         */
+        static Sprites ifReady(int unitSize) {
+            return BY_UNIT_SIZE.get(unitSize);
+        }
+        
+        private Sprites(int unitSize) {
+            int size = Math.max(0, unitSize - 2);
+            
+            // The head breathes between 90% and 110% of its size
+            heads = new BufferedImage[DIRECTIONS.length()][(int) (size * 1.1f) + 2];
+            for (int d = 0; d < heads.length; d++) {
+                for (int s = 1; s < heads[d].length; s++) {
+                    heads[d][s] = renderHead(DIRECTIONS.charAt(d), s);
+                }
+            }
+            
+            segments = new BufferedImage[4][size + 1];
+            for (int s = 1; s <= size; s++) {
+                segments[0][s] = renderSegment(BODY_COLOR, s, false);
+                segments[1][s] = renderSegment(BODY_COLOR, s, true);
+                segments[2][s] = renderSegment(BODY_ACCENT, s, false);
+                segments[3][s] = renderSegment(BODY_ACCENT, s, true);
+            }
+        }
         
-        // Add highlight
-        g2d.setColor(new Color(255, 255, 255, 30));
-        g2d.fillRoundRect(x + offset + 2, y + offset + 2, scaledSize / 2, scaledSize / 2, 2, 2);
+        private static BufferedImage renderHead(char direction, int size) {
+            BufferedImage image = new BufferedImage(size + 2, size + 2, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g2d = createGraphics(image);
+            paintHead(g2d, direction, size);
+            g2d.dispose();
+            return image;
+        }
+        
+        private static BufferedImage renderSegment(Color color, int size, boolean highlight) {
+            BufferedImage image = new BufferedImage(size + 2, size + 2, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g2d = createGraphics(image);
+            paintSegment(g2d, color, size, highlight);
+            g2d.dispose();
+            return image;
+        }
+        
+        /**
+         * Paints a head at the origin, into a sprite or straight onto the frame
+         */
+        static void paintHead(Graphics2D g2d, char direction, int size) {
+            g2d.setPaint(new GradientPaint(0, 0, HEAD_COLOR.brighter(), size, size, HEAD_COLOR));
+            g2d.fillRoundRect(1, 1, size, size, 6, 6);
+            drawEyes(g2d, direction, size);
+        }
+        
+        /**
+         * Paints a body segment at the origin, into a sprite or straight onto the frame
+         */
+        static void paintSegment(Graphics2D g2d, Color color, int size, boolean highlight) {
+            g2d.setPaint(new GradientPaint(0, 0, color.brighter(), size, size, color));
+            g2d.fillRoundRect(1, 1, size, size, 4, 4);
+            if (highlight) {
+                g2d.setColor(SEGMENT_HIGHLIGHT);
+                g2d.fillRoundRect(2, 2, size / 2, size / 2, 2, 2);
+            }
+        }
+        
+        private static Graphics2D createGraphics(BufferedImage image) {
+            Graphics2D g2d = image.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            return g2d;
+        }
+    }
+    
+    /**
+     * Renders the head and segment sprites for a unit size; safe to call off the event
+     * dispatch thread. Snakes of that size paint themselves directly until it has run.
+     */
+    public static void prerender(int unitSize) {
+        Sprites.forUnitSize(unitSize);
     }
     
     /**
@@ -184,6 +336,85 @@ public class Snake {
         this.direction = newDirection;
     }
     
+    /**
+     * Checks whether a turn would change the direction, i.e. is neither a repeat nor a reversal
+     */
+    public boolean changesDirection(char newDirection) {
+        return newDirection != direction && newDirection != opposite(direction);
+    }
+    
+    private static char opposite(char direction) {
+        switch (direction) {
+            case 'U':
+                return 'D';
+            case 'D':
+                return 'U';
+            case 'L':
+                return 'R';
+            default:
+                return 'L';
+        }
+    }
+    
+    /**
+     * Adds a new head at the given position, facing the way it moved.
+     * Used to mirror a snake simulated elsewhere.
+     */
+    public void pushHead(int x, int y) {
+        Point head = bodyParts.get(0);
+        if (x > head.x) {
+            direction = 'R';
+        } else if (x < head.x) {
+            direction = 'L';
+        } else if (y > head.y) {
+            direction = 'D';
+        } else if (y < head.y) {
+            direction = 'U';
+        }
+        bodyParts.add(0, new Point(x, y));
+        bodyPartsCount = Math.max(bodyPartsCount, bodyParts.size());
+    }
+    
+    /**
+     * Removes the last tail segment. Used to mirror a snake simulated elsewhere.
+     */
+    public void popTail() {
+        if (bodyParts.size() > 1) {
+            bodyParts.remove(bodyParts.size() - 1);
+            bodyPartsCount = bodyParts.size();
+        }
+    }
+    
+    /**
+     * Removes the head segment, undoing a move. Used when rewinding.
+     */
+    public void popHead() {
+        if (bodyParts.size() > 1) {
+            bodyParts.remove(0);
+        }
+    }
+    
+    /**
+     * Adds a segment after the tail, undoing a tail pop. Used when rewinding.
+     */
+    public void appendTail(int x, int y) {
+        bodyParts.add(new Point(x, y));
+    }
+    
+    /**
+     * Sets the direction without the reversal check. Used when rewinding.
+     */
+    public void forceDirection(char direction) {
+        this.direction = direction;
+    }
+    
+    /**
+     * Sets the length the snake grows toward. Used when rewinding.
+     */
+    public void setLength(int length) {
+        this.bodyPartsCount = length;
+    }
+    
     /**
      * Checks collision with food
      */
@@ -200,6 +431,21 @@ public class Snake {
         return head.x < 0 || head.x >= panelWidth || head.y < 0 || head.y >= panelHeight;
     }
     
+    /**
+     * Checks collision with the walls of a level, including the board edges
+     */
+    public boolean checkWallCollision(LevelPack.Level level) {
+        Point head = bodyParts.get(0);
+        return level.isWall(Math.floorDiv(head.x, unitSize), Math.floorDiv(head.y, unitSize));
+    }
+    
+    /**
+     * Moves the head to another position without adding a segment, e.g. through a portal
+     */
+    public void moveHead(int x, int y) {
+        bodyParts.get(0).setLocation(x, y);
+    }
+    
     /**
      * Checks collision with snake's own body
      */
@@ -220,6 +466,30 @@ public class Snake {
         this.bodyPartsCount++;
     }
     
+    /**
+     * Drops up to the given number of segments from the tail, never shrinking below the starting length
+     */
+    public void shrink(int segments) {
+        bodyPartsCount = Math.max(Math.min(START_LENGTH, bodyPartsCount), bodyPartsCount - segments);
+        while (bodyParts.size() > bodyPartsCount) {
+            bodyParts.remove(bodyParts.size() - 1);
+        }
+    }
+    
+    /**
+     * Gets the snake's current direction
+     */
+    public char getDirection() {
+        return direction;
+    }
+    
+    /**
+     * Gets the length the snake is growing toward (may exceed the visible body while growing)
+     */
+    public int getLength() {
+        return bodyPartsCount;
+    }
+    
     /**
      * Returns the snake's body parts for food generation
      */
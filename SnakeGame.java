@@ -12,8 +12,17 @@ public class SnakeGame extends JFrame {
     private static final String GAME_TITLE = "Modern Snake Game";
     
     private GamePanel gamePanel;
+    private RemoteGame remoteGame;
     
     public SnakeGame() {
+        this(null);
+    }
+    
+    /**
+     * Creates the window, mirroring a server's game if remoteGame is not null
+     */
+    public SnakeGame(RemoteGame remoteGame) {
+        this.remoteGame = remoteGame;
         initializeWindow();
         initializeGame();
     }
@@ -27,7 +36,13 @@ public class SnakeGame extends JFrame {
         setResizable(false);
         setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
         setLocationRelativeTo(null);
-        
+    }
+    
+    /**
+     * Applies the Nimbus look and feel and the window icon. Neither is needed for the
+     * first frame, so this runs after the window is shown.
+     */
+    private void applyStyling() {
         // Set modern look and feel
         try {
             for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
@@ -39,6 +54,7 @@ public class SnakeGame extends JFrame {
         } catch (Exception e) {
             System.err.println("Could not set look and feel: " + e.getMessage());
         }
+        SwingUtilities.updateComponentTreeUI(this);
         
         // Set window icon (using a simple colored rectangle as fallback)
         setIconImage(createGameIcon());
@@ -66,7 +82,7 @@ public class SnakeGame extends JFrame {
      * Initializes the game panel and adds it to the window
      */
     private void initializeGame() {
-        gamePanel = new GamePanel();
+        gamePanel = new GamePanel(remoteGame);
         add(gamePanel);
         
         // Focus on the game panel for key events
@@ -75,13 +91,23 @@ public class SnakeGame extends JFrame {
     }
     
     /**
-     * Main method to start the application
+     * Main method to start the application.
+     * Pass --connect host[:port] to join a GameServer as a thin client.
      */
     public static void main(String[] args) {
+        StartupTimer.start();
         SwingUtilities.invokeLater(() -> {
             try {
-                SnakeGame game = new SnakeGame();
+                RemoteGame remoteGame = null;
+                if (args.length >= 2 && "--connect".equals(args[0])) {
+                    String[] address = args[1].split(":");
+                    int port = address.length > 1 ? Integer.parseInt(address[1]) : NetProtocol.DEFAULT_PORT;
+                    remoteGame = RemoteGame.connect(address[0], port, WINDOW_WIDTH, WINDOW_HEIGHT);
+                }
+                
+                SnakeGame game = new SnakeGame(remoteGame);
                 game.setVisible(true);
+                SwingUtilities.invokeLater(game::applyStyling);
             } catch (Exception e) {
                 e.printStackTrace();
                 JOptionPane.showMessageDialog(null, 
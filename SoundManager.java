@@ -1,19 +1,44 @@
 import javax.sound.sampled.*;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 
 /**
- * Sound manager for game audio effects
+ * Sound manager for game audio effects. Every effect is synthesized and opened as a
+ * Clip once during warm-up and rewound on each play, so playing a sound allocates
+ * nothing and never blocks the caller.
  */
 public class SoundManager {
-    private boolean soundEnabled;
+    // Audio format specifications
+    private static final int SAMPLE_RATE = 22050;
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+    
+    private volatile boolean soundEnabled;
+    private volatile boolean audioReady;
+    
+    // Opened during warm-up
+    private Clip eatClip;
+    private Clip gameOverClip;
     
     public SoundManager() {
         soundEnabled = true;
-        
-        // Test audio system availability
+    }
+    
+    /**
+     * Probes the audio system, which is slow on first use, and prepares every clip.
+     * Sounds are skipped until this has finished, so it can run in the background
+     * while the game starts.
+     */
+    public void warmUp() {
         try {
             AudioSystem.getMixer(null);
+            
+            // A simple beep for eating
+            eatClip = openClip(tone(800, 100, 0.3f));
+            
+            // A descending tone for game over, with short gaps between the notes
+            gameOverClip = openClip(concat(
+                tone(400, 300, 0.5f), silence(50),
+                tone(300, 300, 0.5f), silence(50),
+                tone(200, 500, 0.5f)));
+            audioReady = true;
         } catch (Exception e) {
             System.err.println("Audio system not available: " + e.getMessage());
             soundEnabled = false;
@@ -24,89 +49,72 @@ public class SoundManager {
      * Plays a sound effect for eating food
      */
     public void playEatSound() {
-        if (!soundEnabled) return;
-        
-        try {
-            // Generate a simple beep sound programmatically
-            playTone(800, 100, 0.3f);
-        } catch (Exception e) {
-            System.err.println("Could not play eat sound: " + e.getMessage());
-        }
+        if (!soundEnabled || !audioReady) return;
+        play(eatClip);
     }
     
     /**
      * Plays a sound effect for game over
      */
     public void playGameOverSound() {
-        if (!soundEnabled) return;
-        
-        try {
-            // Generate a descending tone for game over
-            playTone(400, 300, 0.5f);
-            Thread.sleep(50);
-            playTone(300, 300, 0.5f);
-            Thread.sleep(50);
-            playTone(200, 500, 0.5f);
-        } catch (Exception e) {
-            System.err.println("Could not play game over sound: " + e.getMessage());
-        }
+        if (!soundEnabled || !audioReady) return;
+        play(gameOverClip);
     }
     
     /**
-     * Generates and plays a simple tone
+     * Restarts a prepared clip from the beginning
      */
-    private void playTone(int frequency, int duration, float volume) {
-        try {
-            // Audio format specifications
-            int sampleRate = 22050;
-            int sampleSize = 16;
-            int channels = 1;
-            boolean signed = true;
-            boolean bigEndian = false;
-            
-            AudioFormat format = new AudioFormat(sampleRate, sampleSize, channels, signed, bigEndian);
-            
-            // Generate tone data
-            int numSamples = (int) (sampleRate * duration / 1000.0);
-            byte[] audioData = new byte[numSamples * 2];
+    private void play(Clip clip) {
+        clip.stop();
+        clip.setFramePosition(0);
+        clip.start();
+    }
+    
+    private static Clip openClip(byte[] audioData) throws LineUnavailableException {
+        Clip clip = AudioSystem.getClip();
+        clip.open(FORMAT, audioData, 0, audioData.length);
+        return clip;
+    }
+    
+    /**
+     * Generates 16-bit little-endian samples of a simple tone
+     */
+    private static byte[] tone(int frequency, int duration, float volume) {
+        int numSamples = (int) (SAMPLE_RATE * duration / 1000.0);
+        byte[] audioData = new byte[numSamples * 2];
+        
+        for (int i = 0; i < numSamples; i++) {
+            double time = i / (double) SAMPLE_RATE;
+            double amplitude = volume * Math.sin(2 * Math.PI * frequency * time);
             
-            for (int i = 0; i < numSamples; i++) {
-                double time = i / (double) sampleRate;
-                double amplitude = volume * Math.sin(2 * Math.PI * frequency * time);
-                
-                // Apply fade out to prevent clicking
-                if (i > numSamples * 0.8) {
-                    amplitude *= (numSamples - i) / (numSamples * 0.2);
-                }
-                
-                short sample = (short) (amplitude * Short.MAX_VALUE);
-                audioData[i * 2] = (byte) (sample & 0xff);
-                audioData[i * 2 + 1] = (byte) ((sample >> 8) & 0xff);
+            // Apply fade out to prevent clicking
+            if (i > numSamples * 0.8) {
+                amplitude *= (numSamples - i) / (numSamples * 0.2);
             }
             
-            // Play the sound
-            ByteArrayInputStream bais = new ByteArrayInputStream(audioData);
-            AudioInputStream ais = new AudioInputStream(bais, format, numSamples);
-            
-            Clip clip = AudioSystem.getClip();
-            clip.open(ais);
-            clip.start();
-            
-            // Clean up resources after playing
-            new Thread(() -> {
-                try {
-                    Thread.sleep(duration + 100);
-                    clip.close();
-                    ais.close();
-                    bais.close();
-                } catch (Exception e) {
-                    // Ignore cleanup errors
-                }
-            }).start();
-            
-        } catch (Exception e) {
-            System.err.println("Error generating tone: " + e.getMessage());
+            short sample = (short) (amplitude * Short.MAX_VALUE);
+            audioData[i * 2] = (byte) (sample & 0xff);
+            audioData[i * 2 + 1] = (byte) ((sample >> 8) & 0xff);
+        }
+        return audioData;
+    }
+    
+    private static byte[] silence(int duration) {
+        return new byte[(int) (SAMPLE_RATE * duration / 1000.0) * 2];
+    }
+    
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
         }
+        return result;
     }
     
     /**
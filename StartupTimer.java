@@ -0,0 +1,55 @@
+import java.time.Instant;
+
+/**
+ * Reports time-to-first-frame, measured from JVM process start where the
+ * platform exposes it and from the start of main otherwise.
+ * With -Dsnake.exitAfterFirstFrame=true the application exits once the first
+ * frame is on screen and background warm-up has finished, which is what the
+ * AppCDS training run in run.sh uses.
+ */
+public final class StartupTimer {
+    private static final boolean EXIT_AFTER_FIRST_FRAME = Boolean.getBoolean("snake.exitAfterFirstFrame");
+
+    private static long startMillis = System.currentTimeMillis();
+    private static boolean firstFrame;
+    private static boolean warmedUp;
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Records the start time; called first thing in main
+     */
+    public static void start() {
+        startMillis = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse(System.currentTimeMillis());
+    }
+
+    /**
+     * Called on the event dispatch thread after a frame has been painted
+     */
+    public static void markFirstFrame() {
+        if (firstFrame) {
+            return;
+        }
+        firstFrame = true;
+        System.out.println("time-to-first-frame: " + (System.currentTimeMillis() - startMillis) + " ms");
+        exitIfDone();
+    }
+
+    /**
+     * Called on the event dispatch thread once background warm-up has been swapped in
+     */
+    public static void markWarmedUp() {
+        warmedUp = true;
+        System.out.println("time-to-warm: " + (System.currentTimeMillis() - startMillis) + " ms");
+        exitIfDone();
+    }
+
+    private static void exitIfDone() {
+        if (EXIT_AFTER_FIRST_FRAME && firstFrame && warmedUp) {
+            System.exit(0);
+        }
+    }
+}
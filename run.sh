@@ -0,0 +1,19 @@
+#!/bin/sh
+# Launches the game. With --cds the JVM uses an AppCDS archive of the classes
+# loaded during startup, creating it on the first run (requires JDK 13+).
+#
+#   ./run.sh [--cds] [game arguments]
+
+cd "$(dirname "$0")" || exit 1
+ARCHIVE=snake.jsa
+
+if [ "$1" = "--cds" ]; then
+    shift
+    if [ ! -f "$ARCHIVE" ]; then
+        echo "Creating AppCDS archive $ARCHIVE"
+        java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dsnake.exitAfterFirstFrame=true -cp . SnakeGame || exit 1
+    fi
+    exec java -XX:SharedArchiveFile="$ARCHIVE" -cp . SnakeGame "$@"
+fi
+
+exec java -cp . SnakeGame "$@"